@@ -0,0 +1,82 @@
+package frodokem.bench;
+
+import frodokem.CSPRNG;
+import frodokem.FrodoKEM;
+import frodokem.FrodoParams;
+import frodokem.FrodoSerializer;
+import frodokem.OffHeapKEM;
+import frodokem.OffHeapKeyPair;
+import frodokem.ShakeRandomSource;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// KemBenchmark's keyGen, encapsulate and decapsulate on the off-heap classes in src-ffm. Only
+// built by the "ffm" profile, and the JVM needs --enable-preview (see the README)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OffHeapKemBenchmark extends ThreadedState {
+    @Param({"FrodoKEM-640", "FrodoKEM-976", "FrodoKEM-1344"})
+    public String parameterSet;
+
+    private FrodoParams params;
+    private OffHeapKeyPair keyPair;
+    private FrodoKEM.Ciphertext ciphertext;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        params = FrodoParams.byName(parameterSet);
+        // The off-heap path must agree with FrodoKEM before its timings mean anything
+        byte[] seed = {1};
+        try (OffHeapKeyPair offHeap = OffHeapKEM.keyGen(params, new ShakeRandomSource(seed))) {
+            FrodoKEM.KeyPair heap = FrodoKEM.keyGen(params, new ShakeRandomSource(seed));
+            FrodoKEM.Ciphertext ct = OffHeapKEM.encapsulate(offHeap.publicKey, new ShakeRandomSource(seed));
+            FrodoKEM.Ciphertext expected = FrodoKEM.encapsulate(heap.publicKey, new ShakeRandomSource(seed));
+            if (!FrodoSerializer.encode(ct).equals(FrodoSerializer.encode(expected))
+                    || !Arrays.equals(offHeap.decapsulate(ct), FrodoKEM.decapsulate(expected, heap.privateKey))) {
+                throw new IllegalStateException("Off-heap KEM disagrees with FrodoKEM for " + params + ".");
+            }
+        }
+        CSPRNG.useSystemRandomness();
+        keyPair = OffHeapKEM.keyGen(params);
+        ciphertext = OffHeapKEM.encapsulate(keyPair.publicKey);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        keyPair.close();
+    }
+
+    @Benchmark
+    public FrodoKEM.PublicKey keyGen() {
+        try (OffHeapKeyPair generated = OffHeapKEM.keyGen(params)) {
+            return generated.publicKey;
+        }
+    }
+
+    @Benchmark
+    public FrodoKEM.Ciphertext encapsulate() {
+        return OffHeapKEM.encapsulate(keyPair.publicKey);
+    }
+
+    @Benchmark
+    public byte[] decapsulate() {
+        return keyPair.decapsulate(ciphertext);
+    }
+}
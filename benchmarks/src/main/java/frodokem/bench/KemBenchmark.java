@@ -0,0 +1,130 @@
+package frodokem.bench;
+
+import frodokem.CSPRNG;
+import frodokem.DecapsulationContext;
+import frodokem.FrodoKEM;
+import frodokem.FrodoParams;
+import frodokem.KemMetrics;
+import frodokem.Matrix;
+import frodokem.StreamingEncapsulator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// End-to-end KEM operations per parameter set
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KemBenchmark extends ThreadedState {
+    private static final int BATCH_SIZE = 8;
+
+    @Param({"FrodoKEM-640", "FrodoKEM-976", "FrodoKEM-1344"})
+    public String parameterSet;
+
+    // -p metrics=true measures the cost of KemMetrics instrumentation
+    @Param({"false"})
+    public boolean metrics;
+
+    private FrodoParams params;
+    private FrodoKEM.KeyPair keyPair;
+    private FrodoKEM.Ciphertext ciphertext;
+    private Matrix sharedSecretMatrix;
+    private List<FrodoKEM.PublicKey> replicaKeys;
+    private List<FrodoKEM.PublicKey> independentKeys;
+    private DecapsulationContext context;
+    private final StreamingEncapsulator streaming = new StreamingEncapsulator();
+    private final WritableByteChannel discard = Channels.newChannel(OutputStream.nullOutputStream());
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CSPRNG.useSystemRandomness();
+        KemMetrics.setEnabled(metrics);
+        params = FrodoParams.byName(parameterSet);
+        keyPair = FrodoKEM.keyGen(params);
+        ciphertext = FrodoKEM.encapsulate(keyPair.publicKey);
+        context = DecapsulationContext.of(keyPair);
+        sharedSecretMatrix = ciphertext.C2.subtractProductMod(ciphertext.C1, keyPair.privateKey, params.q).toMatrix();
+
+        // Replicas of one deployment are generated under one seedA, which is what lets a batch
+        // share the A pass; independently generated keys each have their own A
+        replicaKeys = new ArrayList<>();
+        independentKeys = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            replicaKeys.add(FrodoKEM.keyGen(params, keyPair.publicKey.seedA, CSPRNG.current()).publicKey);
+            independentKeys.add(FrodoKEM.keyGen(params).publicKey);
+        }
+    }
+
+    @Benchmark
+    public FrodoKEM.KeyPair keyGen() {
+        return FrodoKEM.keyGen(params);
+    }
+
+    @Benchmark
+    public FrodoKEM.Ciphertext encapsulate() {
+        return FrodoKEM.encapsulate(keyPair.publicKey);
+    }
+
+    // Same ciphertext bytes as encapsulate + FrodoSerializer.encode, written as they are produced
+    @Benchmark
+    public void encapsulateStreaming() throws IOException {
+        streaming.encapsulate(keyPair.publicKey, discard);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<FrodoKEM.Ciphertext> encapsulateBatch() {
+        return FrodoKEM.encapsulateBatch(replicaKeys);
+    }
+
+    // Keys from plain keyGen: one group per key, so this measures the batching overhead
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<FrodoKEM.Ciphertext> encapsulateBatchIndependent() {
+        return FrodoKEM.encapsulateBatch(independentKeys);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void encapsulateLoop(Blackhole blackhole) {
+        for (FrodoKEM.PublicKey key : replicaKeys) {
+            blackhole.consume(FrodoKEM.encapsulate(key));
+        }
+    }
+
+    @Benchmark
+    public byte[] decapsulate() {
+        return FrodoKEM.decapsulate(ciphertext, keyPair.privateKey);
+    }
+
+    @Benchmark
+    public byte[] decapsulatePrepared() {
+        return context.decapsulate(ciphertext);
+    }
+
+    @Benchmark
+    public byte[] hashMatrix() {
+        return FrodoKEM.hashMatrix(sharedSecretMatrix);
+    }
+}
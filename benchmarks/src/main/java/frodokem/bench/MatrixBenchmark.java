@@ -0,0 +1,114 @@
+package frodokem.bench;
+
+import frodokem.Matrix;
+import frodokem.ModQMatrix;
+import frodokem.NoiseMatrix;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Matrix kernels on square size x size operands and on the n x n by n x 8 shape keygen uses;
+// the *NarrowTypes variants run the same product on short/byte operands. "backend" picks the
+// scalar loops or the Vector API kernels (the latter needs --add-modules jdk.incubator.vector)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatrixBenchmark extends ThreadedState {
+    private static final int Q = 1 << 15;
+
+    @Param({"64", "256", "640", "1344"})
+    public int size;
+
+    // Only scalar by default so a plain run works without jdk.incubator.vector; add the vector
+    // trials with -p backend=scalar,vector
+    @Param({"scalar"})
+    public String backend;
+
+    private Matrix a;
+    private Matrix b;
+    private Matrix narrow;
+    private Matrix narrowAddend;
+    private Matrix noise;
+    private ModQMatrix aModQ;
+    private ModQMatrix addendModQ;
+    private NoiseMatrix noiseNarrow;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Matrix.setVectorized("vector".equals(backend));
+        Random random = new Random(42);
+        a = uniform(random, size, size);
+        b = uniform(random, size, size);
+        narrow = uniform(random, size, 8);
+        narrowAddend = uniform(random, size, 8);
+        noise = new Matrix(size, 8);
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < 8; j++) {
+                noise.set(i, j, random.nextInt(25) - 12);
+            }
+        }
+        aModQ = ModQMatrix.from(a);
+        addendModQ = ModQMatrix.from(narrowAddend);
+        noiseNarrow = NoiseMatrix.from(noise);
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreBackend() {
+        Matrix.setVectorized(Matrix.isVectorApiAvailable());
+    }
+
+    private static Matrix uniform(Random random, int rows, int cols) {
+        Matrix matrix = new Matrix(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                matrix.set(i, j, random.nextInt(Q));
+            }
+        }
+        return matrix;
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public Matrix multiplyNarrow() {
+        return a.multiplyAddMod(narrow, narrowAddend, Q);
+    }
+
+    @Benchmark
+    public Matrix subtractProduct() {
+        return narrowAddend.subtractProductMod(a, noise, Q);
+    }
+
+    @Benchmark
+    public ModQMatrix subtractProductNarrowTypes() {
+        return addendModQ.subtractProductMod(aModQ, noiseNarrow, Q);
+    }
+
+    @Benchmark
+    public Matrix transpose() {
+        return a.transpose();
+    }
+
+    @Benchmark
+    public Matrix mod() {
+        return a.mod(Q);
+    }
+}
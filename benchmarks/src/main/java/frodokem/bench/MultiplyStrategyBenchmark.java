@@ -0,0 +1,71 @@
+package frodokem.bench;
+
+import frodokem.Matrix;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Square size x size products on each multiply kernel: "strategy" forces blocked or Strassen
+// (-p strategy=auto runs whichever Matrix selects) and "strassenCutoff" sets where the
+// recursion stops. The sizes straddle the AUTO threshold of three times the default cutoff
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MultiplyStrategyBenchmark extends ThreadedState {
+    private static final int Q = 1 << 15;
+
+    @Param({"256", "384", "640", "976", "1344"})
+    public int size;
+
+    @Param({"blocked", "strassen"})
+    public String strategy;
+
+    @Param({"128"})
+    public int strassenCutoff;
+
+    private Matrix a;
+    private Matrix b;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Matrix.setMultiplyStrategy(Matrix.MultiplyStrategy.valueOf(strategy.toUpperCase()), strassenCutoff);
+        Random random = new Random(42);
+        a = uniform(random, size, size);
+        b = uniform(random, size, size);
+    }
+
+    @TearDown(Level.Trial)
+    public void restoreStrategy() {
+        Matrix.setMultiplyStrategy(Matrix.MultiplyStrategy.AUTO, Matrix.DEFAULT_STRASSEN_CUTOFF);
+    }
+
+    private static Matrix uniform(Random random, int rows, int cols) {
+        Matrix matrix = new Matrix(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                matrix.set(i, j, random.nextInt(Q));
+            }
+        }
+        return matrix;
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return a.multiply(b);
+    }
+}
@@ -0,0 +1,78 @@
+package frodokem.bench;
+
+import frodokem.CSPRNG;
+import frodokem.FrodoParams;
+import frodokem.Matrix;
+import frodokem.MatrixA;
+import frodokem.NoiseMatrix;
+import frodokem.NoiseSampler;
+import frodokem.RandomSource;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Noise and uniform sampling: the table sampler against the legacy Box-Muller path, bulk uniform
+// draws against per-element SecureRandom.nextInt, and expansion of A from its seed
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SamplingBenchmark extends ThreadedState {
+    @Param({"FrodoKEM-640", "FrodoKEM-1344", "FrodoKEM-640-AES"})
+    public String parameterSet;
+
+    private FrodoParams params;
+    private byte[] seed;
+    private MatrixA matrixA;
+    private RandomSource randomSource;
+    private SecureRandom secureRandom;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        params = FrodoParams.byName(parameterSet);
+        seed = new byte[32];
+        new SecureRandom().nextBytes(seed);
+        matrixA = new MatrixA(params, Arrays.copyOf(seed, MatrixA.SEED_BYTES));
+        randomSource = CSPRNG.seeded(seed);
+        secureRandom = new SecureRandom();
+    }
+
+    @Benchmark
+    public NoiseMatrix noiseTableSampler() {
+        return new NoiseSampler(params, NoiseSampler.DOMAIN_KEYGEN, seed).sample(params.n, params.nBar);
+    }
+
+    @Benchmark
+    public Matrix noiseBoxMuller() {
+        return Matrix.generateDiscreteGaussianMatrix(params.n, params.nBar, params.sigma, secureRandom);
+    }
+
+    @Benchmark
+    public Matrix uniformBulk() {
+        return Matrix.generateRandomMatrix(params.n, params.nBar, params.q, randomSource);
+    }
+
+    @Benchmark
+    public Matrix uniformPerElement() {
+        return Matrix.generateRandomMatrix(params.n, params.nBar, params.q, secureRandom);
+    }
+
+    @Benchmark
+    public Matrix expandA() {
+        return matrixA.toMatrix();
+    }
+}
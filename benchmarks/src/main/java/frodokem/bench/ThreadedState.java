@@ -0,0 +1,31 @@
+package frodokem.bench;
+
+import frodokem.Matrix;
+import java.util.concurrent.ForkJoinPool;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Shared "threads" parameter: 1 runs every Matrix kernel sequentially, N runs them on a
+// dedicated N-worker ForkJoinPool with the default parallel threshold
+public abstract class ThreadedState {
+    @Param({"1", "4"})
+    public int threads;
+
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void configurePool() {
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        Matrix.setParallelism(pool, Matrix.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    @TearDown(Level.Trial)
+    public void restorePool() {
+        Matrix.setParallelism(ForkJoinPool.commonPool(), Matrix.DEFAULT_PARALLEL_THRESHOLD);
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package frodokem;
+
+import java.util.Arrays;
+
+// FrodoKEM with every secret matrix held off-heap. Key generation samples S and E straight into
+// native memory; encapsulation keeps r, e1 and e2 in arenas that are zeroized and released
+// before it returns. Ciphertexts and shared secrets are identical to FrodoKEM's for the same
+// randomness
+public final class OffHeapKEM {
+    private OffHeapKEM() {
+    }
+
+    public static OffHeapKeyPair keyGen(FrodoParams params) {
+        return keyGen(params, CSPRNG.current());
+    }
+
+    // Same seeds and sampling order as FrodoKEM.keyGen
+    public static OffHeapKeyPair keyGen(FrodoParams params, RandomSource random) {
+        byte[] seedA = new byte[MatrixA.SEED_BYTES];
+        byte[] seedSE = new byte[FrodoKEM.SEED_SE_BYTES];
+        random.fill(seedA);
+        random.fill(seedSE);
+        NoiseSampler noise = new NoiseSampler(params, NoiseSampler.DOMAIN_KEYGEN, seedSE);
+        OffHeapNoiseMatrix S = OffHeapNoiseMatrix.shared(params.n, params.nBar);
+        try (OffHeapNoiseMatrix E = OffHeapNoiseMatrix.shared(params.n, params.nBar)) {
+            S.sample(noise);
+            E.sample(noise);
+            ModQMatrix B = SegmentKernels.aTimesNoiseAddMod(new MatrixA(params, seedA), S, E);
+            return new OffHeapKeyPair(new FrodoKEM.PublicKey(params, seedA, B), S);
+        } catch (RuntimeException e) {
+            S.close();
+            throw e;
+        } finally {
+            noise.wipe();
+            Arrays.fill(seedSE, (byte) 0);
+        }
+    }
+
+    public static FrodoKEM.Ciphertext encapsulate(FrodoKEM.PublicKey publicKey) {
+        return encapsulate(publicKey, CSPRNG.current());
+    }
+
+    // Same seed and sampling order as FrodoKEM.encapsulate
+    public static FrodoKEM.Ciphertext encapsulate(FrodoKEM.PublicKey publicKey, RandomSource random) {
+        FrodoParams params = publicKey.params;
+        byte[] seedSE = new byte[FrodoKEM.SEED_SE_BYTES];
+        random.fill(seedSE);
+        NoiseSampler noise = new NoiseSampler(params, NoiseSampler.DOMAIN_ENCAPSULATION, seedSE);
+        try (OffHeapNoiseMatrix r = OffHeapNoiseMatrix.shared(params.mBar, params.n);
+             OffHeapNoiseMatrix e1 = OffHeapNoiseMatrix.confined(params.mBar, params.n);
+             OffHeapNoiseMatrix e2 = OffHeapNoiseMatrix.confined(params.mBar, params.nBar)) {
+            r.sample(noise);
+            e1.sample(noise);
+            e2.sample(noise);
+            ModQMatrix C1 = SegmentKernels.noiseTimesAAddMod(publicKey.matrixA(), r, e1);
+            ModQMatrix C2 = r.multiplyAddMod(publicKey.B, e2, params.q);
+            return new FrodoKEM.Ciphertext(params, C1, C2);
+        } finally {
+            noise.wipe();
+            Arrays.fill(seedSE, (byte) 0);
+        }
+    }
+}
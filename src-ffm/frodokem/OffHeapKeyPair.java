@@ -0,0 +1,97 @@
+package frodokem;
+
+import java.util.Arrays;
+
+// Key pair whose secret S lives off-heap in a shared arena. Decapsulation reads S straight from
+// native memory and wipes its per-thread scratch after every call; close() zeroizes S and frees
+// it, after which decapsulate throws IllegalStateException
+public final class OffHeapKeyPair implements AutoCloseable {
+    public final FrodoParams params;
+    public final FrodoKEM.PublicKey publicKey;
+    private final OffHeapNoiseMatrix privateKey;
+
+    // Per-thread output row and hasher, reused across calls
+    private final ThreadLocal<Scratch> scratch;
+
+    private static final class Scratch {
+        final int[] row;
+        final MatrixHasher hasher = new MatrixHasher(MatrixHasher.Encoding.BINARY);
+
+        Scratch(int nBar) {
+            row = new int[nBar];
+        }
+    }
+
+    // Takes ownership of privateKey, which must be shared so any thread can decapsulate
+    OffHeapKeyPair(FrodoKEM.PublicKey publicKey, OffHeapNoiseMatrix privateKey) {
+        FrodoParams params = publicKey.params;
+        if (privateKey.rows != params.n || privateKey.cols != params.nBar) {
+            throw new IllegalArgumentException("Private key must be an n x nBar matrix for " + params + ".");
+        }
+        if (!privateKey.shared) {
+            throw new IllegalArgumentException("Private key must be allocated in a shared arena.");
+        }
+        this.params = params;
+        this.publicKey = publicKey;
+        this.privateKey = privateKey;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(params.nBar));
+    }
+
+    // Moves a heap key pair off-heap; the heap copy of S is zeroized, so keyPair must not be used afterwards
+    public static OffHeapKeyPair takeOwnership(FrodoKEM.KeyPair keyPair) {
+        OffHeapNoiseMatrix privateKey = OffHeapNoiseMatrix.copyOf(keyPair.privateKey, true);
+        keyPair.privateKey.zeroize();
+        return new OffHeapKeyPair(keyPair.publicKey, privateKey);
+    }
+
+    // Same result as FrodoKEM.decapsulate(ct, privateKey)
+    public byte[] decapsulate(FrodoKEM.Ciphertext ct) {
+        if (ct.params != params) {
+            throw new IllegalArgumentException("Ciphertext uses " + ct.params + " but the key is " + params + ".");
+        }
+        if (ct.C1.rows != params.mBar || ct.C1.cols != params.n
+                || ct.C2.rows != params.mBar || ct.C2.cols != params.nBar) {
+            throw new IllegalArgumentException("Ciphertext has the wrong dimensions.");
+        }
+        checkOpen();
+        Scratch local = scratch.get();
+        int[] row = local.row;
+        byte[] sharedSecret = null;
+        try {
+            for (int i = 0; i < ct.C2.rows; i++) {
+                SegmentKernels.modQSubtractProductModRow(ct.C2, ct.C1, privateKey, row, i, params.q);
+                local.hasher.absorb(row, 0, row.length);
+            }
+            sharedSecret = local.hasher.finish();
+        } finally {
+            Arrays.fill(row, 0);
+            if (sharedSecret == null) {
+                // e.g. close() freed S part-way through; drop the rows already absorbed
+                local.hasher.reset();
+            }
+        }
+        // A close() that raced with this call may have zeroized S before the rows were read
+        checkOpen();
+        return sharedSecret;
+    }
+
+    // Heap copy of S for serialization; the caller is responsible for zeroizing it
+    public FrodoKEM.KeyPair toHeap() {
+        return new FrodoKEM.KeyPair(publicKey, privateKey.toHeap());
+    }
+
+    @Override
+    public void close() {
+        privateKey.close();
+    }
+
+    public boolean isClosed() {
+        return privateKey.isClosed();
+    }
+
+    private void checkOpen() {
+        if (privateKey.isClosed()) {
+            throw new IllegalStateException("Off-heap key pair has been closed.");
+        }
+    }
+}
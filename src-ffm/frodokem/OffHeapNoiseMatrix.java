@@ -0,0 +1,118 @@
+package frodokem;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// NoiseMatrix stored outside the Java heap in a MemorySegment owned by its own Arena. The GC
+// never scans or copies it, and close() zeroizes the memory and frees it immediately instead of
+// whenever a collection gets around to it. A confined matrix may only be used by the thread that
+// created it; a shared one can be read by the parallel kernels
+public final class OffHeapNoiseMatrix implements AutoCloseable {
+    // Heap staging buffer used while sampling, wiped after every chunk
+    private static final int CHUNK_BYTES = 4096;
+
+    public final int rows;
+    public final int cols;
+    final boolean shared;
+    final MemorySegment segment; // Row-major, one signed byte per coefficient
+    private final Arena arena;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private OffHeapNoiseMatrix(int rows, int cols, boolean shared) {
+        this.rows = rows;
+        this.cols = cols;
+        this.shared = shared;
+        this.arena = shared ? Arena.ofShared() : Arena.ofConfined();
+        // Arena memory starts out zeroed
+        this.segment = arena.allocate((long) rows * cols);
+    }
+
+    // Usable only from the calling thread; kernels on it run sequentially
+    public static OffHeapNoiseMatrix confined(int rows, int cols) {
+        return new OffHeapNoiseMatrix(rows, cols, false);
+    }
+
+    // Usable from any thread, so kernels on it may split across the matrix pool
+    public static OffHeapNoiseMatrix shared(int rows, int cols) {
+        return new OffHeapNoiseMatrix(rows, cols, true);
+    }
+
+    // Off-heap copy of a heap matrix; call matrix.zeroize() afterwards to drop the heap copy
+    public static OffHeapNoiseMatrix copyOf(NoiseMatrix matrix, boolean shared) {
+        OffHeapNoiseMatrix result = new OffHeapNoiseMatrix(matrix.rows, matrix.cols, shared);
+        MemorySegment.copy(matrix.data, 0, result.segment, ValueLayout.JAVA_BYTE, 0, matrix.data.length);
+        return result;
+    }
+
+    // Fills the matrix with the sampler's next rows * cols error samples
+    public OffHeapNoiseMatrix sample(NoiseSampler noise) {
+        byte[] chunk = new byte[(int) Math.min(CHUNK_BYTES, segment.byteSize())];
+        for (long offset = 0; offset < segment.byteSize(); offset += chunk.length) {
+            int length = (int) Math.min(chunk.length, segment.byteSize() - offset);
+            noise.fill(chunk, 0, length);
+            MemorySegment.copy(chunk, 0, segment, ValueLayout.JAVA_BYTE, offset, length);
+        }
+        Arrays.fill(chunk, (byte) 0);
+        return this;
+    }
+
+    public int get(int row, int col) {
+        return segment.get(ValueLayout.JAVA_BYTE, (long) row * cols + col);
+    }
+
+    public void set(int row, int col, int value) {
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Value does not fit a noise matrix: " + value);
+        }
+        segment.set(ValueLayout.JAVA_BYTE, (long) row * cols + col, (byte) value);
+    }
+
+    // Heap copy, e.g. for serialization; the caller owns its lifetime
+    public NoiseMatrix toHeap() {
+        NoiseMatrix result = new NoiseMatrix(rows, cols);
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, 0, result.data, 0, result.data.length);
+        return result;
+    }
+
+    // (this * b + e) mod modulus for a mod-Q right operand, e.g. C2 = r * B + e2
+    public ModQMatrix multiplyAddMod(ModQMatrix b, OffHeapNoiseMatrix e, int modulus) {
+        if (this.cols != b.rows) {
+            throw new IllegalArgumentException("The number of columns in the first matrix must equal the number of rows in the second matrix.");
+        }
+        if (e.rows != this.rows || e.cols != b.cols) {
+            throw new IllegalArgumentException("Matrices must have the same dimensions to be added.");
+        }
+        return SegmentKernels.noiseTimesModQAddMod(this, b, e, modulus);
+    }
+
+    public void zeroize() {
+        segment.fill((byte) 0);
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    // Zeroizes and releases the memory; further access throws IllegalStateException
+    @Override
+    public void close() {
+        // Shared matrices can be closed from any thread; only the first close frees the arena
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        zeroize();
+        while (true) {
+            try {
+                arena.close();
+                return;
+            } catch (IllegalStateException e) {
+                // A shared arena refuses to close while another thread is inside an access. Those
+                // readers only see zeros now and OffHeapKeyPair rejects their result, so retry
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
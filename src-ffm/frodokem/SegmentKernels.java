@@ -0,0 +1,143 @@
+package frodokem;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+
+// The mixed-width KEM kernels of NarrowKernels and MatrixA, reading the noise operand straight
+// from off-heap segments instead of copying it back onto the heap
+final class SegmentKernels {
+    private SegmentKernels() {
+    }
+
+    // Confined segments cannot be touched by pool workers, so those kernels stay on the caller
+    private static void forRows(boolean parallel, int rows, long work, MatrixKernels.RowRange op) {
+        if (parallel) {
+            MatrixKernels.forRows(rows, work, op);
+        } else {
+            op.apply(0, rows);
+        }
+    }
+
+    // B = (A * S + E) mod q for n x m noise operands S and E
+    static ModQMatrix aTimesNoiseAddMod(MatrixA A, OffHeapNoiseMatrix s, OffHeapNoiseMatrix e) {
+        int n = A.params.n;
+        int m = s.cols;
+        int mask = A.params.q - 1;
+        MemorySegment sSegment = s.segment;
+        MemorySegment eSegment = e.segment;
+        ModQMatrix result = new ModQMatrix(n, m);
+        short[] c = result.data;
+        forRows(s.shared && e.shared, n, (long) n * n * m, (start, end) -> {
+            MatrixA.RowExpander expander = A.newExpander();
+            int[] row = new int[n];
+            int[] acc = new int[m];
+            for (int i = start; i < end; i++) {
+                expander.expand(i, row);
+                long cRow = (long) i * m;
+                for (int j = 0; j < m; j++) {
+                    acc[j] = eSegment.get(ValueLayout.JAVA_BYTE, cRow + j);
+                }
+                for (int p = 0; p < n; p++) {
+                    int aip = row[p];
+                    long sRow = (long) p * m;
+                    for (int j = 0; j < m; j++) {
+                        acc[j] += aip * sSegment.get(ValueLayout.JAVA_BYTE, sRow + j);
+                    }
+                }
+                for (int j = 0; j < m; j++) {
+                    c[(int) cRow + j] = (short) (acc[j] & mask);
+                }
+            }
+        });
+        return result;
+    }
+
+    // C1 = (r * A + e1) mod q for k x n noise operands, with per-block partial sums as in
+    // MatrixA.leftMultiplyAddMod; the partials depend on r and are wiped once combined
+    static ModQMatrix noiseTimesAAddMod(MatrixA A, OffHeapNoiseMatrix r, OffHeapNoiseMatrix e) {
+        int n = A.params.n;
+        int k = r.rows;
+        long work = (long) k * n * n;
+        boolean parallel = r.shared && MatrixKernels.pool() != null && work >= MatrixKernels.parallelThreshold();
+        int blocks = parallel ? Math.max(1, Math.min(n, MatrixKernels.pool().getParallelism())) : 1;
+        MemorySegment rSegment = r.segment;
+        SimdKernels vector = MatrixKernels.simd();
+        int[][] partials = new int[blocks][];
+        forRows(parallel, blocks, work, (blockStart, blockEnd) -> {
+            MatrixA.RowExpander expander = A.newExpander();
+            int[] row = new int[n];
+            for (int b = blockStart; b < blockEnd; b++) {
+                int[] acc = new int[k * n];
+                for (int i = b * n / blocks, iEnd = (b + 1) * n / blocks; i < iEnd; i++) {
+                    expander.expand(i, row);
+                    for (int l = 0; l < k; l++) {
+                        int rli = rSegment.get(ValueLayout.JAVA_BYTE, (long) l * n + i);
+                        MatrixKernels.axpy(vector, rli, row, 0, acc, l * n, n);
+                    }
+                }
+                partials[b] = acc;
+            }
+        });
+        int mask = A.params.q - 1;
+        ModQMatrix result = new ModQMatrix(k, n);
+        short[] c = result.data;
+        for (int i = 0; i < c.length; i++) {
+            int sum = e.segment.get(ValueLayout.JAVA_BYTE, i);
+            for (int[] partial : partials) {
+                sum += partial[i];
+            }
+            c[i] = (short) (sum & mask);
+        }
+        for (int[] partial : partials) {
+            Arrays.fill(partial, 0);
+        }
+        return result;
+    }
+
+    // C2 = (r * b + e) mod modulus for a k x n noise r and an n x m mod-Q b
+    static ModQMatrix noiseTimesModQAddMod(OffHeapNoiseMatrix r, ModQMatrix b, OffHeapNoiseMatrix e, int modulus) {
+        int k = r.rows;
+        int n = r.cols;
+        int m = b.cols;
+        int mask = modulus - 1;
+        ModQMatrix result = new ModQMatrix(k, m);
+        int[] acc = new int[m];
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < m; j++) {
+                acc[j] = e.segment.get(ValueLayout.JAVA_BYTE, (long) i * m + j);
+            }
+            for (int p = 0; p < n; p++) {
+                int rip = r.segment.get(ValueLayout.JAVA_BYTE, (long) i * n + p);
+                int bRow = p * m;
+                for (int j = 0; j < m; j++) {
+                    acc[j] += rip * (b.data[bRow + j] & 0xFFFF);
+                }
+            }
+            for (int j = 0; j < m; j++) {
+                result.data[i * m + j] = (short) (acc[j] & mask);
+            }
+        }
+        Arrays.fill(acc, 0);
+        return result;
+    }
+
+    // out[0, m) = row i of (d - a * s) mod modulus for mod-Q d and a and an off-heap k x m s
+    static void modQSubtractProductModRow(ModQMatrix d, ModQMatrix a, OffHeapNoiseMatrix s, int[] out, int i, int modulus) {
+        int k = a.cols;
+        int m = d.cols;
+        int dRow = i * m;
+        for (int j = 0; j < m; j++) {
+            out[j] = d.data[dRow + j] & 0xFFFF;
+        }
+        int aRow = i * k;
+        for (int p = 0; p < k; p++) {
+            int aip = a.data[aRow + p] & 0xFFFF;
+            long sRow = (long) p * m;
+            for (int j = 0; j < m; j++) {
+                out[j] -= aip * s.segment.get(ValueLayout.JAVA_BYTE, sRow + j);
+            }
+        }
+        MatrixKernels.reduceRange(out, out, 0, m, modulus);
+    }
+}
@@ -0,0 +1,108 @@
+package frodokem;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// SimdKernels on the incubating Vector API, using the widest int species the CPU supports
+// (8 lanes with AVX2, 16 with AVX-512). Needs --add-modules jdk.incubator.vector at compile and
+// run time; MatrixKernels only loads this class when that module is present
+final class VectorKernels implements SimdKernels {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    // The dot products widen short and byte lanes to int, so the narrow species must have as many
+    // lanes as the int one. Bytes need a shape of at least 64 bits, hence at least 8 int lanes
+    private static final int DOT_BITS = Math.min(512, Math.max(256, SPECIES.vectorBitSize()));
+    private static final VectorSpecies<Integer> DOT_INTS = VectorSpecies.of(int.class, VectorShape.forBitSize(DOT_BITS));
+    private static final VectorSpecies<Short> DOT_SHORTS = VectorSpecies.of(short.class, VectorShape.forBitSize(DOT_BITS / 2));
+    private static final VectorSpecies<Byte> DOT_BYTES = VectorSpecies.of(byte.class, VectorShape.forBitSize(DOT_BITS / 4));
+
+    @Override
+    public void axpy(int alpha, int[] x, int xOff, int[] y, int yOff, int length) {
+        IntVector scale = IntVector.broadcast(SPECIES, alpha);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(length); i < bound; i += SPECIES.length()) {
+            IntVector vx = IntVector.fromArray(SPECIES, x, xOff + i);
+            IntVector vy = IntVector.fromArray(SPECIES, y, yOff + i);
+            vy.add(vx.mul(scale)).intoArray(y, yOff + i);
+        }
+        for (; i < length; i++) {
+            y[yOff + i] += alpha * x[xOff + i];
+        }
+    }
+
+    @Override
+    public void add(int[] a, int[] b, int[] out, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i).add(IntVector.fromArray(SPECIES, b, i)).intoArray(out, i);
+        }
+        for (; i < to; i++) {
+            out[i] = a[i] + b[i];
+        }
+    }
+
+    @Override
+    public void subtract(int[] a, int[] b, int[] out, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, a, i).sub(IntVector.fromArray(SPECIES, b, i)).intoArray(out, i);
+        }
+        for (; i < to; i++) {
+            out[i] = a[i] - b[i];
+        }
+    }
+
+    @Override
+    public void mask(int[] src, int[] dst, int from, int to, int mask) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            IntVector.fromArray(SPECIES, src, i).and(mask).intoArray(dst, i);
+        }
+        for (; i < to; i++) {
+            dst[i] = src[i] & mask;
+        }
+    }
+
+    @Override
+    public int dot(short[] a, int aOff, byte[] b, int bOff, int length) {
+        IntVector sum = IntVector.zero(DOT_INTS);
+        int i = 0;
+        for (int bound = DOT_INTS.loopBound(length); i < bound; i += DOT_INTS.length()) {
+            IntVector va = ((IntVector) ShortVector.fromArray(DOT_SHORTS, a, aOff + i)
+                    .convertShape(VectorOperators.S2I, DOT_INTS, 0)).and(0xFFFF);
+            IntVector vb = (IntVector) ByteVector.fromArray(DOT_BYTES, b, bOff + i)
+                    .convertShape(VectorOperators.B2I, DOT_INTS, 0);
+            sum = sum.add(va.mul(vb));
+        }
+        int result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += (a[aOff + i] & 0xFFFF) * b[bOff + i];
+        }
+        return result;
+    }
+
+    @Override
+    public int dot(int[] a, int aOff, byte[] b, int bOff, int length) {
+        IntVector sum = IntVector.zero(DOT_INTS);
+        int i = 0;
+        for (int bound = DOT_INTS.loopBound(length); i < bound; i += DOT_INTS.length()) {
+            IntVector vb = (IntVector) ByteVector.fromArray(DOT_BYTES, b, bOff + i)
+                    .convertShape(VectorOperators.B2I, DOT_INTS, 0);
+            sum = sum.add(IntVector.fromArray(DOT_INTS, a, aOff + i).mul(vb));
+        }
+        int result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[aOff + i] * b[bOff + i];
+        }
+        return result;
+    }
+
+    @Override
+    public String description() {
+        return "IntVector x " + SPECIES.length();
+    }
+}
@@ -0,0 +1,126 @@
+package frodokem;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// TranscriptSink that hands matrices to a background thread through a bounded queue and writes
+// them as tab-separated text files (the format FrodoKEM_TestVectors reads). record() never blocks:
+// when the queue is full the entry is dropped and counted
+public class AsyncTranscriptWriter implements TranscriptSink, AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final int DEFAULT_BATCH_SIZE = 16;
+
+    private final File folder;
+    private final BlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final Thread worker;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private volatile boolean closed;
+
+    private static final class Entry {
+        final String name;
+        final Matrix matrix;
+
+        Entry(String name, Matrix matrix) {
+            this.name = name;
+            this.matrix = matrix;
+        }
+    }
+
+    public AsyncTranscriptWriter(String folder) {
+        this(folder, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public AsyncTranscriptWriter(String folder, int capacity, int batchSize) {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive.");
+        }
+        this.folder = new File(folder);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.worker = new Thread(this::drainLoop, "frodokem-transcript-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void record(String name, Matrix matrix) {
+        Entry entry = new Entry(name, matrix);
+        if (closed || !queue.offer(entry)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        // close() may have finished draining between the check and the offer; nobody will write
+        // the entry then, so take it back and count it
+        if (closed && queue.remove(entry)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    public long writtenCount() {
+        return written.get();
+    }
+
+    // Stops accepting entries, writes everything already queued and waits for the worker
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Entries that slipped in as the worker exited
+        while (queue.poll() != null) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                for (Entry entry : batch) {
+                    write(entry);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(Entry entry) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(new File(folder, entry.name + ".txt")))) {
+            Matrix matrix = entry.matrix;
+            for (int i = 0; i < matrix.rows; i++) {
+                for (int j = 0; j < matrix.cols; j++) {
+                    writer.write(matrix.get(i, j) + "\t");
+                }
+                writer.write("\n");
+            }
+            written.incrementAndGet();
+        } catch (IOException e) {
+            System.err.println("Error writing transcript entry " + entry.name + ": " + e.getMessage());
+        }
+    }
+}
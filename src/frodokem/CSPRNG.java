@@ -2,13 +2,95 @@ package frodokem;
 
 import org.bouncycastle.crypto.digests.SHAKEDigest;
 import java.security.SecureRandom;
+import java.util.Arrays;
 
 public class CSPRNG {
+    private static final int STREAM_SEED_BYTES = 32;
+
     private static final SecureRandom secureRandom;
 
+    // Seeds the per-thread streams; only touched once per thread
+    private static final SecureRandom seedSource = new SecureRandom();
+
+    // Each thread gets its own SHAKE-256 stream, so concurrent handshakes never share a lock.
+    // Seeding costs one synchronized SecureRandom draw per thread; with a virtual thread per
+    // request that is one draw per request, which is still far cheaper than the KEM itself
+    private static final ThreadLocal<RatchetingStream> perThread = ThreadLocal.withInitial(() -> {
+        byte[] seed = new byte[STREAM_SEED_BYTES];
+        synchronized (seedSource) {
+            seedSource.nextBytes(seed);
+        }
+        RatchetingStream stream = new RatchetingStream(seed);
+        Arrays.fill(seed, (byte) 0);
+        return stream;
+    });
+
+    // When set, every caller draws from this single seeded stream (test vectors)
+    private static volatile RandomSource deterministic;
+
     static {
+        // Use the random seed to initialize SecureRandom
+        secureRandom = new SecureRandom(expandSeed(Constants.SEED));
+    }
+
+    // Legacy shared instance, still used by the Box-Muller and per-element Matrix generators
+    public static SecureRandom getInstance() {
+        return secureRandom;
+    }
+
+    // The randomness the KEM operations draw from: the deterministic stream if one is installed,
+    // otherwise the calling thread's own stream
+    public static RandomSource current() {
+        RandomSource source = deterministic;
+        return source != null ? source : perThread.get();
+    }
+
+    // Switches every caller to one stream derived from the numeric seed, e.g. Constants.SEED
+    public static void useDeterministicSeed(int seed) {
+        ShakeRandomSource stream = new ShakeRandomSource(expandSeed(seed));
+        // Shared between threads, so fills are serialized to keep the stream reproducible
+        deterministic = (out, offset, length) -> {
+            synchronized (stream) {
+                stream.fill(out, offset, length);
+            }
+        };
+    }
+
+    // Returns to per-thread streams seeded from the system
+    public static void useSystemRandomness() {
+        deterministic = null;
+    }
+
+    // A fresh per-operation stream from an explicit seed
+    public static ShakeRandomSource seeded(byte[] seed) {
+        return new ShakeRandomSource(seed);
+    }
+
+    // System stream that rekeys itself from its own output after every fill and wipes the old XOF
+    // state. A heap dump of a long-lived thread then reveals nothing it has already handed out
+    // (seedA, seedSE or r), only what it would produce next
+    private static final class RatchetingStream implements RandomSource {
+        private ShakeRandomSource stream;
+
+        RatchetingStream(byte[] seed) {
+            stream = new ShakeRandomSource(seed);
+        }
+
+        @Override
+        public void fill(byte[] out, int offset, int length) {
+            stream.fill(out, offset, length);
+            byte[] next = new byte[STREAM_SEED_BYTES];
+            stream.fill(next);
+            stream.wipe();
+            stream = new ShakeRandomSource(next);
+            Arrays.fill(next, (byte) 0);
+        }
+    }
+
+    // Derive 256 bits of seed material from an integer seed with SHAKE-256
+    private static byte[] expandSeed(int seed) {
         // Convert the integer seed to a byte array
-        byte[] seedBytes = intToBytes(Constants.SEED);
+        byte[] seedBytes = intToBytes(seed);
 
         // Create a SHAKE-256 instance
         SHAKEDigest shake256 = new SHAKEDigest(256);
@@ -17,13 +99,7 @@ public class CSPRNG {
         // Generate random seed material
         byte[] randomSeed = new byte[32]; // 256-bit seed
         shake256.doFinal(randomSeed, 0, randomSeed.length);
-
-        // Use the random seed to initialize SecureRandom
-        secureRandom = new SecureRandom(randomSeed); // Deterministic RNG
-    }
-
-    public static SecureRandom getInstance() {
-        return secureRandom;
+        return randomSeed;
     }
 
     // Helper method to convert integer to byte array
@@ -35,4 +111,4 @@ public class CSPRNG {
                 (byte) value
         };
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,6 @@
 package frodokem;
 
 public class Constants {
-    public static final int Q = 32768; // Modulus for FrodoKEM-640
-    public static final int MATRIX_SIZE = 640; // Actual matrix size for FrodoKEM-640
-    public static final double SIGMA = 2.8; // Standard deviation for discrete Gaussian noise
+    public static final FrodoParams PARAMS = FrodoParams.FRODOKEM_640; // Default parameter set (FrodoKEM-640)
     public static final int SEED = 32; // Numeric seed for deterministic random generation
 }
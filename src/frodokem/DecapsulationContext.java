@@ -0,0 +1,120 @@
+package frodokem;
+
+import java.util.Arrays;
+
+// Private key prepared once for repeated decapsulation. S is stored transposed (nBar x n),
+// so every shared-secret coefficient is a dot product of two contiguous rows:
+// a row of C1 and a row of S^T. Immutable apart from per-thread scratch, so one context can
+// serve any number of threads. close() zeroizes the transposed key copy
+public final class DecapsulationContext implements AutoCloseable {
+    public final FrodoParams params;
+    private final byte[] sTransposed;
+    private volatile boolean closed;
+
+    // Per-thread output row and hasher, reused across calls
+    private final ThreadLocal<Scratch> scratch;
+
+    private static final class Scratch {
+        final int[] row;
+        final MatrixHasher hasher = new MatrixHasher(MatrixHasher.Encoding.BINARY);
+
+        Scratch(int nBar) {
+            row = new int[nBar];
+        }
+    }
+
+    public DecapsulationContext(FrodoParams params, NoiseMatrix privateKey) {
+        if (privateKey.rows != params.n || privateKey.cols != params.nBar) {
+            throw new IllegalArgumentException("Private key must be an n x nBar matrix for " + params + ".");
+        }
+        this.params = params;
+        int n = params.n;
+        int nBar = params.nBar;
+        this.sTransposed = NarrowKernels.transpose(privateKey.data, n, nBar);
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(nBar));
+    }
+
+    public static DecapsulationContext of(FrodoKEM.KeyPair keyPair) {
+        return new DecapsulationContext(keyPair.params, keyPair.privateKey);
+    }
+
+    // Same result as FrodoKEM.decapsulate(ct, privateKey)
+    public byte[] decapsulate(FrodoKEM.Ciphertext ct) {
+        KemMetrics.Scope scope = KemMetrics.begin(KemMetrics.Operation.DECAPSULATE);
+        try {
+            byte[] sharedSecret = decapsulateRows(ct, scope != null);
+            KemMetrics.end(scope);
+            return sharedSecret;
+        } catch (RuntimeException e) {
+            KemMetrics.fail(scope);
+            throw e;
+        }
+    }
+
+    private byte[] decapsulateRows(FrodoKEM.Ciphertext ct, boolean timed) {
+        if (ct.params != params) {
+            throw new IllegalArgumentException("Ciphertext uses " + ct.params + " but the key is " + params + ".");
+        }
+        if (ct.C1.rows != params.mBar || ct.C1.cols != params.n
+                || ct.C2.rows != params.mBar || ct.C2.cols != params.nBar) {
+            throw new IllegalArgumentException("Ciphertext has the wrong dimensions for " + params + ".");
+        }
+        checkOpen();
+        Scratch local = scratch.get();
+        int[] row = local.row;
+        long multiplyNanos = 0;
+        long hashingNanos = 0;
+        byte[] sharedSecret = null;
+        try {
+            for (int i = 0; i < ct.C2.rows; i++) {
+                long start = timed ? System.nanoTime() : 0;
+                sharedSecretRow(ct.C1, ct.C2, i, row);
+                long computed = timed ? System.nanoTime() : 0;
+                local.hasher.absorb(row, 0, row.length);
+                if (timed) {
+                    multiplyNanos += computed - start;
+                    hashingNanos += System.nanoTime() - computed;
+                }
+            }
+            long finish = timed ? System.nanoTime() : 0;
+            sharedSecret = local.hasher.finish();
+            hashingNanos += timed ? System.nanoTime() - finish : 0;
+        } finally {
+            Arrays.fill(row, 0);
+            if (sharedSecret == null) {
+                // Never leave a partial absorb in the per-thread hasher
+                local.hasher.reset();
+            }
+        }
+        // A close() that raced with this call may have zeroized S part-way through
+        checkOpen();
+        if (timed) {
+            KemMetrics.recordPhase(KemMetrics.Phase.MULTIPLY, multiplyNanos);
+            KemMetrics.recordPhase(KemMetrics.Phase.HASHING, hashingNanos);
+        }
+        return sharedSecret;
+    }
+
+    // Zeroizes the transposed copy of S; later (and racing) decapsulations throw IllegalStateException
+    @Override
+    public void close() {
+        closed = true;
+        Arrays.fill(sTransposed, (byte) 0);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Decapsulation context has been closed.");
+        }
+    }
+
+    // out[0, nBar) = row i of (C2 - C1 * S) mod Q
+    void sharedSecretRow(ModQMatrix C1, ModQMatrix C2, int i, int[] out) {
+        NarrowKernels.modQSubtractProductModRowTransposed(MatrixKernels.simd(), C2.data, C1.data, sTransposed, out,
+                i, params.n, params.nBar, params.q);
+    }
+}
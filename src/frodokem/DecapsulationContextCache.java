@@ -0,0 +1,126 @@
+package frodokem;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+// Bounded LRU cache of prepared private keys for services that juggle many keys.
+// All bookkeeping is synchronized; building a context is a single pass over S, so it is done under
+// the lock. Contexts are handed out as leases: an evicted or invalidated context is closed, which
+// zeroizes its copy of S, only once the last lease on it is released, so a caller never sees a
+// context closed under it by another thread's insert
+public class DecapsulationContextCache<K> {
+    private final Map<K, Entry> contexts;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    // A cached context and the number of leases currently using it; guarded by the cache
+    private static final class Entry {
+        final DecapsulationContext context;
+        int leases;
+        boolean retired; // No longer in the map; closed when leases drops to 0
+
+        Entry(DecapsulationContext context) {
+            this.context = context;
+        }
+    }
+
+    // A borrowed context; close() hands it back. Use with try-with-resources
+    public final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private boolean released;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public DecapsulationContext context() {
+            return entry.context;
+        }
+
+        public byte[] decapsulate(FrodoKEM.Ciphertext ct) {
+            return entry.context.decapsulate(ct);
+        }
+
+        @Override
+        public void close() {
+            synchronized (DecapsulationContextCache.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                entry.leases--;
+                closeIfIdle(entry);
+            }
+        }
+    }
+
+    public DecapsulationContextCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        // Access order turns the map into an LRU list; the eldest entry is evicted past capacity
+        this.contexts = new LinkedHashMap<K, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry> eldest) {
+                if (size() > capacity) {
+                    retire(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Leases the cached context for key, loading the key pair and preparing it on a miss
+    public synchronized Lease acquire(K key, Function<? super K, FrodoKEM.KeyPair> loader) {
+        Entry entry = contexts.get(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            entry = new Entry(DecapsulationContext.of(loader.apply(key)));
+            contexts.put(key, entry);
+        }
+        entry.leases++;
+        return new Lease(entry);
+    }
+
+    // Leases the context for key for the duration of one decapsulation
+    public byte[] decapsulate(K key, Function<? super K, FrodoKEM.KeyPair> loader, FrodoKEM.Ciphertext ct) {
+        try (Lease lease = acquire(key, loader)) {
+            return lease.decapsulate(ct);
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        Entry entry = contexts.remove(key);
+        if (entry != null) {
+            retire(entry);
+        }
+    }
+
+    public synchronized int size() {
+        return contexts.size();
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    private void retire(Entry entry) {
+        entry.retired = true;
+        closeIfIdle(entry);
+    }
+
+    private static void closeIfIdle(Entry entry) {
+        if (entry.retired && entry.leases == 0) {
+            entry.context.close();
+        }
+    }
+}
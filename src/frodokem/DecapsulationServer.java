@@ -0,0 +1,261 @@
+package frodokem;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Long-running decapsulation service for one private key.
+// Each request is handled on its own virtual thread, which decodes the ciphertext and offers it to
+// a bounded queue; a full queue rejects the request instead of blocking. A single batcher thread
+// takes up to maxBatchSize requests (waiting at most linger for stragglers), stacks their C1
+// matrices into one tall [C1_1; C1_2; ...] operand and computes every shared-secret matrix with a
+// single (C2 - C1 * S) mod Q product. Results are bit-identical to FrodoKEM.decapsulate
+public class DecapsulationServer implements AutoCloseable {
+    private final FrodoKEM.KeyPair keyPair;
+    private final BlockingQueue<Request> queue;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread batcher;
+    private volatile boolean accepting = true;
+    private volatile boolean running = true;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private static final class Request {
+        final FrodoKEM.Ciphertext ciphertext;
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+
+        Request(FrodoKEM.Ciphertext ciphertext) {
+            this.ciphertext = ciphertext;
+        }
+    }
+
+    public DecapsulationServer(FrodoKEM.KeyPair keyPair, int queueCapacity, int maxBatchSize, Duration linger) {
+        if (queueCapacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Queue capacity and batch size must be positive.");
+        }
+        this.keyPair = keyPair;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = linger.toNanos();
+        this.batcher = new Thread(this::batchLoop, "frodokem-decapsulation-batcher");
+        this.batcher.setDaemon(true);
+        this.batcher.start();
+    }
+
+    // Queues a decoded ciphertext; the future fails with RejectedExecutionException under overload
+    // or once close() has begun
+    public CompletableFuture<byte[]> submit(FrodoKEM.Ciphertext ciphertext) {
+        if (!accepting) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Server is closed."));
+        }
+        return enqueue(ciphertext);
+    }
+
+    // Shared by submit and the handlers. Handlers skip the accepting check: their request was
+    // accepted before close() began, and close() keeps the batcher running until they finish
+    private CompletableFuture<byte[]> enqueue(FrodoKEM.Ciphertext ciphertext) {
+        if (ciphertext.params != keyPair.params) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Ciphertext uses " + ciphertext.params + " but the key is " + keyPair.params + "."));
+        }
+        FrodoParams params = keyPair.params;
+        if (ciphertext.C1.rows != params.mBar || ciphertext.C1.cols != params.n
+                || ciphertext.C2.rows != params.mBar || ciphertext.C2.cols != params.nBar) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Ciphertext has the wrong dimensions."));
+        }
+        Request request = new Request(ciphertext);
+        if (!queue.offer(request)) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Decapsulation queue is full."));
+        }
+        // The batcher may have stopped (close() or an interrupt) between the caller's check and the
+        // offer; if the request is still queued nobody will serve it, so withdraw it. Otherwise the
+        // batcher or a drain has it
+        if (!running && queue.remove(request)) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Server is closed."));
+        }
+        accepted.incrementAndGet();
+        return request.result;
+    }
+
+    // Handles a serialized ciphertext (FrodoSerializer format) on a new virtual thread
+    public CompletableFuture<byte[]> submit(ByteBuffer encodedCiphertext) {
+        if (!accepting) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Server is closed."));
+        }
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        try {
+            handlers.execute(() -> handle(encodedCiphertext, result));
+        } catch (RejectedExecutionException e) {
+            // close() shut the handlers down after the accepting check
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Server is closed.", e));
+        }
+        return result;
+    }
+
+    private void handle(ByteBuffer encodedCiphertext, CompletableFuture<byte[]> result) {
+        try {
+            FrodoKEM.Ciphertext ciphertext = FrodoSerializer.decodeCiphertext(encodedCiphertext);
+            // The virtual thread parks here until its batch completes
+            result.complete(enqueue(ciphertext).join());
+        } catch (CompletionException e) {
+            result.completeExceptionally(e.getCause());
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    // In-process loopback client: encodes like a remote peer would and blocks for the answer
+    public Client client() {
+        return new Client();
+    }
+
+    public class Client {
+        public byte[] decapsulate(FrodoKEM.Ciphertext ciphertext) {
+            try {
+                return submit(FrodoSerializer.encode(ciphertext)).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+    public long acceptedCount() {
+        return accepted.get();
+    }
+
+    public long rejectedCount() {
+        return rejected.get();
+    }
+
+    public long batchCount() {
+        return batches.get();
+    }
+
+    // Stops accepting requests, serves every request already accepted (including serialized ones
+    // still being decoded by their handlers) and stops the batcher
+    @Override
+    public void close() {
+        accepting = false;
+        handlers.shutdown();
+        try {
+            // In-flight handlers still need the batcher, so it is stopped only once they are done
+            handlers.awaitTermination(1, TimeUnit.MINUTES);
+            running = false;
+            batcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything that raced past the accepting check after the batcher stopped
+        failQueued(new RejectedExecutionException("Server is closed."));
+    }
+
+    private void batchLoop() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // Linger briefly so a burst of requests shares one multiply
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Request next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                // Without the batcher nothing will serve the queue: fail what this batch already took
+                // and everything still queued, and turn new requests away
+                Thread.currentThread().interrupt();
+                accepting = false;
+                running = false;
+                RejectedExecutionException stopped = new RejectedExecutionException("Decapsulation batcher was interrupted.");
+                fail(batch, stopped);
+                failQueued(stopped);
+                return;
+            } catch (RuntimeException e) {
+                fail(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static void fail(List<Request> requests, Throwable cause) {
+        for (Request request : requests) {
+            request.result.completeExceptionally(cause);
+        }
+    }
+
+    private void failQueued(Throwable cause) {
+        Request leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.result.completeExceptionally(cause);
+        }
+    }
+
+    private void process(List<Request> batch) {
+        KemMetrics.Scope scope = KemMetrics.begin(KemMetrics.Operation.DECAPSULATE_BATCH);
+        try {
+            decapsulateBatch(batch);
+            KemMetrics.end(scope);
+        } catch (RuntimeException e) {
+            KemMetrics.fail(scope);
+            throw e;
+        }
+    }
+
+    private void decapsulateBatch(List<Request> batch) {
+        int size = batch.size();
+        ModQMatrix[] c1 = new ModQMatrix[size];
+        ModQMatrix[] c2 = new ModQMatrix[size];
+        for (int i = 0; i < size; i++) {
+            c1[i] = batch.get(i).ciphertext.C1;
+            c2[i] = batch.get(i).ciphertext.C2;
+        }
+        // One (k * mBar) x n by n x nBar product covers the whole batch
+        long multiply = KemMetrics.phaseStart();
+        ModQMatrix sharedSecrets = ModQMatrix.concatRows(c2)
+                .subtractProductMod(ModQMatrix.concatRows(c1), keyPair.privateKey, keyPair.params.q);
+        KemMetrics.phaseEnd(KemMetrics.Phase.MULTIPLY, multiply);
+        long hashing = KemMetrics.phaseStart();
+        int mBar = keyPair.params.mBar;
+        MatrixHasher hasher = new MatrixHasher(MatrixHasher.Encoding.BINARY);
+        for (int i = 0; i < size; i++) {
+            hasher.absorb(sharedSecrets.data, i * mBar * sharedSecrets.cols, mBar * sharedSecrets.cols);
+            batch.get(i).result.complete(hasher.finish());
+        }
+        Arrays.fill(sharedSecrets.data, (short) 0);
+        KemMetrics.phaseEnd(KemMetrics.Phase.HASHING, hashing);
+        batches.incrementAndGet();
+    }
+}
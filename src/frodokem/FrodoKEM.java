@@ -1,106 +1,385 @@
 package frodokem;
 
-import java.security.SecureRandom;
-
-import org.bouncycastle.crypto.digests.SHAKEDigest;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class FrodoKEM {
+    // Length of the seed that the error matrices are expanded from
+    static final int SEED_SE_BYTES = 32;
+
+    // Where encapsulation reports its randomness; discarded unless a test harness installs a sink
+    private static volatile TranscriptSink transcript = TranscriptSink.NONE;
+
+    // Shared-secret hasher reused per thread; finish() leaves it ready for the next decapsulation
+    private static final ThreadLocal<MatrixHasher> HASHER =
+            ThreadLocal.withInitial(() -> new MatrixHasher(MatrixHasher.Encoding.BINARY));
+
+    public static void setTranscriptSink(TranscriptSink sink) {
+        transcript = sink != null ? sink : TranscriptSink.NONE;
+    }
+
+    // Public key: the seed that A is expanded from, plus B = (A * S + E) mod Q
+    public static class PublicKey {
+        public final FrodoParams params;
+        public final byte[] seedA;
+        public final ModQMatrix B;
+
+        public PublicKey(FrodoParams params, byte[] seedA, ModQMatrix B) {
+            if (B.rows != params.n || B.cols != params.nBar) {
+                throw new IllegalArgumentException("Public key must be an n x nBar matrix for " + params + ".");
+            }
+            this.params = params;
+            this.seedA = seedA.clone();
+            this.B = B;
+        }
+
+        public MatrixA matrixA() {
+            return new MatrixA(params, seedA);
+        }
+    }
 
     public static class KeyPair {
-        public final Matrix publicKey;
-        public final Matrix privateKey;
+        public final FrodoParams params;
+        public final PublicKey publicKey;
+        public final NoiseMatrix privateKey; // S, whose entries all fit in a byte
 
-        public KeyPair(Matrix publicKey, Matrix privateKey) {
+        public KeyPair(PublicKey publicKey, NoiseMatrix privateKey) {
+            this.params = publicKey.params;
             this.publicKey = publicKey;
             this.privateKey = privateKey;
         }
     }
 
-    // Key generation using random matrices
+    // Key generation using random matrices and the default parameter set
     public static KeyPair keyGen() {
-        // Use the CSPRNG instance for deterministic random generation
-        SecureRandom random = CSPRNG.getInstance();
+        return keyGen(Constants.PARAMS);
+    }
+
+    // Key generation using random matrices for the given parameter set
+    public static KeyPair keyGen(FrodoParams params) {
+        return keyGen(params, CSPRNG.current());
+    }
+
+    // Key generation drawing its seeds from the given randomness source
+    public static KeyPair keyGen(FrodoParams params, RandomSource random) {
+        KemMetrics.Scope scope = KemMetrics.begin(KemMetrics.Operation.KEY_GEN);
+        try {
+            KeyPair keyPair = generateKeyPair(params, random);
+            KemMetrics.end(scope);
+            return keyPair;
+        } catch (RuntimeException e) {
+            KemMetrics.fail(scope);
+            throw e;
+        }
+    }
 
-        // Generate random matrix A and discrete Gaussian noise matrices S and E
-        Matrix A = Matrix.generateRandomMatrix(Constants.MATRIX_SIZE, Constants.MATRIX_SIZE, Constants.Q, random);
-        Matrix S = Matrix.generateDiscreteGaussianMatrix(Constants.MATRIX_SIZE, Constants.MATRIX_SIZE, random);
-        Matrix E = Matrix.generateDiscreteGaussianMatrix(Constants.MATRIX_SIZE, Constants.MATRIX_SIZE, random);
+    // Key generation under an existing seedA, for deployments whose keys deliberately share A
+    // (e.g. the replicas behind one service). Only keys with equal params and seedA let
+    // encapsulateBatch expand A once for several recipients; keyGen(params, random) draws a fresh
+    // seedA per key, as the specification does, so such keys never share. A shared A is public
+    // and safe to reuse, but an attacker's precomputation against it then covers every key
+    public static KeyPair keyGen(FrodoParams params, byte[] seedA, RandomSource random) {
+        if (seedA == null || seedA.length != MatrixA.SEED_BYTES) {
+            throw new IllegalArgumentException("seedA must be " + MatrixA.SEED_BYTES + " bytes.");
+        }
+        KemMetrics.Scope scope = KemMetrics.begin(KemMetrics.Operation.KEY_GEN);
+        try {
+            KeyPair keyPair = generateKeyPair(params, seedA.clone(), random);
+            KemMetrics.end(scope);
+            return keyPair;
+        } catch (RuntimeException e) {
+            KemMetrics.fail(scope);
+            throw e;
+        }
+    }
+
+    private static KeyPair generateKeyPair(FrodoParams params, RandomSource random) {
+        byte[] seedA = new byte[MatrixA.SEED_BYTES];
+        random.fill(seedA);
+        return generateKeyPair(params, seedA, random);
+    }
 
-        // Compute public key B = (A * S + E) mod Q
-        Matrix B = A.multiply(S).add(E).mod(Constants.Q);
+    private static KeyPair generateKeyPair(FrodoParams params, byte[] seedA, RandomSource random) {
+        // A is expanded from a 16-byte seed; S and E are n x nBar error matrices drawn with the
+        // table sampler from one SHAKE stream keyed by seedSE
+        byte[] seedSE = new byte[SEED_SE_BYTES];
+        random.fill(seedSE);
+        long sampling = KemMetrics.phaseStart();
+        NoiseSampler noise = new NoiseSampler(params, NoiseSampler.DOMAIN_KEYGEN, seedSE);
+        NoiseMatrix S = noise.sample(params.n, params.nBar);
+        NoiseMatrix E = noise.sample(params.n, params.nBar);
+        KemMetrics.phaseEnd(KemMetrics.Phase.SAMPLING, sampling);
 
-        return new KeyPair(B, S); // S is used as the private key
+        KeyPair keyPair = keyGenFromMatrices(params, seedA, S, E);
+        // Nothing but S outlives key generation
+        E.zeroize();
+        noise.wipe();
+        Arrays.fill(seedSE, (byte) 0);
+        return keyPair;
     }
 
-    // Key generation using predefined matrices (for testing purposes)
-    public static KeyPair keyGenFromMatrices(Matrix A, Matrix S, Matrix E) {
-        // Compute public key B = (A * S + E) mod Q
-        Matrix B = A.multiply(S).add(E).mod(Constants.Q);
+    // Key generation using a predefined seed and noise matrices (for testing purposes)
+    public static KeyPair keyGenFromMatrices(FrodoParams params, byte[] seedA, NoiseMatrix S, NoiseMatrix E) {
+        // Compute public key B = (A * S + E) mod Q, streaming rows of A from the seed
+        ModQMatrix B = new MatrixA(params, seedA).multiplyAddMod(S, E);
 
-        return new KeyPair(B, S); // S is used as the private key
+        return new KeyPair(new PublicKey(params, seedA, B), S); // S is used as the private key
     }
 
     public static class Ciphertext {
-        public final Matrix C1;
-        public final Matrix C2;
+        public final FrodoParams params;
+        public final ModQMatrix C1;
+        public final ModQMatrix C2;
 
-        public Ciphertext(Matrix C1, Matrix C2) {
+        public Ciphertext(FrodoParams params, ModQMatrix C1, ModQMatrix C2) {
+            this.params = params;
             this.C1 = C1;
             this.C2 = C2;
         }
     }
 
     // Encapsulation function to generate ciphertext
-    public static Ciphertext encapsulate(Matrix publicKey) {
-        // Use the CSPRNG instance for deterministic random generation
-        SecureRandom random = CSPRNG.getInstance();
-
-        // Generate random matrix A and discrete Gaussian noise matrices r, e1, e2 for FrodoKEM_TestVectors purpose
-        Matrix A = Matrix.generateRandomMatrix(Constants.MATRIX_SIZE, Constants.MATRIX_SIZE, Constants.Q, random);
-        Matrix r = Matrix.generateDiscreteGaussianMatrix(Constants.MATRIX_SIZE, Constants.MATRIX_SIZE, random);
-        Matrix e1 = Matrix.generateDiscreteGaussianMatrix(Constants.MATRIX_SIZE, Constants.MATRIX_SIZE, random);
-        Matrix e2 = Matrix.generateDiscreteGaussianMatrix(Constants.MATRIX_SIZE, Constants.MATRIX_SIZE, random);
-         // Save randomness to output folder
-        
-         FrodoKEM_Test.writeMatrixToFile(A, "random_A.txt");
-         FrodoKEM_Test.writeMatrixToFile(r, "random_r.txt");
-         FrodoKEM_Test.writeMatrixToFile(e1, "random_e1.txt");
-         FrodoKEM_Test.writeMatrixToFile(e2, "random_e2.txt");
- 
-        // Compute C1 = (A * r + e1) mod Q
-        Matrix C1 = A.multiply(r).add(e1).mod(Constants.Q);
-
-        // Compute C2 = (publicKey * r + e2) mod Q
-        Matrix C2 = publicKey.multiply(r).add(e2).mod(Constants.Q);
-
-        return new Ciphertext(C1, C2);
+    public static Ciphertext encapsulate(PublicKey publicKey) {
+        return encapsulate(publicKey, CSPRNG.current());
+    }
+
+    // Encapsulation drawing its seed from the given randomness source
+    public static Ciphertext encapsulate(PublicKey publicKey, RandomSource random) {
+        KemMetrics.Scope scope = KemMetrics.begin(KemMetrics.Operation.ENCAPSULATE);
+        try {
+            Ciphertext ciphertext = encapsulateOnce(publicKey, random);
+            KemMetrics.end(scope);
+            return ciphertext;
+        } catch (RuntimeException e) {
+            KemMetrics.fail(scope);
+            throw e;
+        }
+    }
+
+    private static Ciphertext encapsulateOnce(PublicKey publicKey, RandomSource random) {
+        FrodoParams params = publicKey.params;
+
+        // Generate mBar x n / mBar x nBar noise matrices r, e1, e2
+        byte[] seedSE = new byte[SEED_SE_BYTES];
+        random.fill(seedSE);
+        long sampling = KemMetrics.phaseStart();
+        NoiseSampler noise = new NoiseSampler(params, NoiseSampler.DOMAIN_ENCAPSULATION, seedSE);
+        NoiseMatrix r = noise.sample(params.mBar, params.n);
+        NoiseMatrix e1 = noise.sample(params.mBar, params.n);
+        NoiseMatrix e2 = noise.sample(params.mBar, params.nBar);
+        KemMetrics.phaseEnd(KemMetrics.Phase.SAMPLING, sampling);
+
+        Ciphertext ciphertext = encapsulateFromMatrices(publicKey, r, e1, e2);
+        wipe(noise, seedSE, r, e1, e2);
+        return ciphertext;
+    }
+
+    // Encapsulation using predefined noise matrices (for testing purposes)
+    public static Ciphertext encapsulateFromMatrices(PublicKey publicKey, NoiseMatrix r, NoiseMatrix e1, NoiseMatrix e2) {
+        // Report randomness for test vectors (A is reproducible from the public key's seed)
+        TranscriptSink sink = transcript;
+        if (sink != TranscriptSink.NONE) {
+            sink.record("random_r", r.toMatrix());
+            sink.record("random_e1", e1.toMatrix());
+            sink.record("random_e2", e2.toMatrix());
+        }
+
+        ModQMatrix[] c = computeC1C2(publicKey.matrixA(), publicKey.B, r, e1, e2);
+        return new Ciphertext(publicKey.params, c[0], c[1]);
+    }
+
+    // Encapsulates to many public keys in one pass. Keys that share params and seedA (replicas
+    // of one deployment, generated with keyGen(params, seedA, random)) share a single r and
+    // C1 = r * A + e1, so A is expanded once, and their B matrices are stacked side by side so
+    // every C2 comes out of one wide r * [B_1 | B_2 | ...] product. Each recipient still gets its
+    // own e2 block and its own copy of C1. Keys with distinct seeds gain nothing over calling
+    // encapsulate per key
+    public static List<Ciphertext> encapsulateBatch(List<PublicKey> publicKeys) {
+        return encapsulateBatch(publicKeys, CSPRNG.current());
+    }
+
+    public static List<Ciphertext> encapsulateBatch(List<PublicKey> publicKeys, RandomSource random) {
+        KemMetrics.Scope scope = KemMetrics.begin(KemMetrics.Operation.ENCAPSULATE_BATCH);
+        try {
+            List<Ciphertext> ciphertexts = encapsulateGroups(publicKeys, random);
+            KemMetrics.end(scope);
+            return ciphertexts;
+        } catch (RuntimeException e) {
+            KemMetrics.fail(scope);
+            throw e;
+        }
+    }
+
+    private static List<Ciphertext> encapsulateGroups(List<PublicKey> publicKeys, RandomSource random) {
+        // Group recipients by (params, seedA), keeping first-seen group order (which fixes the
+        // order randomness is drawn in) and the caller's order within each group
+        Map<GroupKey, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < publicKeys.size(); i++) {
+            PublicKey key = publicKeys.get(i);
+            groups.computeIfAbsent(new GroupKey(key.params, key.seedA), k -> new ArrayList<>()).add(i);
+        }
+
+        Ciphertext[] results = new Ciphertext[publicKeys.size()];
+        for (List<Integer> group : groups.values()) {
+            PublicKey first = publicKeys.get(group.get(0));
+            FrodoParams params = first.params;
+            int recipients = group.size();
+
+            // One noise stream per group: r and e1 are shared, e2 holds one mBar x nBar block per recipient
+            byte[] seedSE = new byte[SEED_SE_BYTES];
+            random.fill(seedSE);
+            long sampling = KemMetrics.phaseStart();
+            NoiseSampler noise = new NoiseSampler(params, NoiseSampler.DOMAIN_ENCAPSULATION, seedSE);
+            NoiseMatrix r = noise.sample(params.mBar, params.n);
+            NoiseMatrix e1 = noise.sample(params.mBar, params.n);
+            NoiseMatrix e2 = noise.sample(params.mBar, params.nBar * recipients);
+            KemMetrics.phaseEnd(KemMetrics.Phase.SAMPLING, sampling);
+
+            ModQMatrix[] stackedB = new ModQMatrix[recipients];
+            for (int k = 0; k < recipients; k++) {
+                stackedB[k] = publicKeys.get(group.get(k)).B;
+            }
+            ModQMatrix[] c = computeC1C2(first.matrixA(), ModQMatrix.concatColumns(stackedB), r, e1, e2);
+            for (int k = 0; k < recipients; k++) {
+                ModQMatrix C2 = c[1].sliceColumns(k * params.nBar, (k + 1) * params.nBar);
+                // Ciphertexts are mutable, so each recipient gets its own C1 rather than a shared one
+                ModQMatrix C1 = k == recipients - 1 ? c[0] : c[0].copy();
+                results[group.get(k)] = new Ciphertext(params, C1, C2);
+            }
+            wipe(noise, seedSE, r, e1, e2);
+        }
+        return Arrays.asList(results);
+    }
+
+    // Hash key for batch grouping; seedA is wrapped, not copied, so it compares by content
+    private record GroupKey(FrodoParams params, ByteBuffer seedA) {
+        GroupKey(FrodoParams params, byte[] seedA) {
+            this(params, ByteBuffer.wrap(seedA));
+        }
+    }
+
+    // Clears the ephemeral secrets of one encapsulation so they do not linger on the heap
+    private static void wipe(NoiseSampler noise, byte[] seedSE, NoiseMatrix r, NoiseMatrix e1, NoiseMatrix e2) {
+        noise.wipe();
+        Arrays.fill(seedSE, (byte) 0);
+        r.zeroize();
+        e1.zeroize();
+        e2.zeroize();
+    }
+
+    // C1 = (r * A + e1) mod Q and C2 = (r * B + e2) mod Q are independent,
+    // so C1 is forked onto the matrix pool while C2 is computed on the calling thread
+    private static ModQMatrix[] computeC1C2(MatrixA A, ModQMatrix B, NoiseMatrix r, NoiseMatrix e1, NoiseMatrix e2) {
+        ForkJoinPool pool = Matrix.getExecutionPool();
+        ForkJoinTask<ModQMatrix> c1Task = null;
+        if (pool != null && pool.getParallelism() > 1) {
+            // The branch charges its phases to the caller's operation
+            KemMetrics.Scope scope = KemMetrics.current();
+            c1Task = pool.submit(() -> KemMetrics.callIn(scope, () -> A.leftMultiplyAddMod(r, e1)));
+        }
+        long multiply = KemMetrics.phaseStart();
+        ModQMatrix C2 = r.multiplyAddMod(B, e2, A.params.q);
+        KemMetrics.phaseEnd(KemMetrics.Phase.MULTIPLY, multiply);
+        ModQMatrix C1 = c1Task != null ? c1Task.join() : A.leftMultiplyAddMod(r, e1);
+        return new ModQMatrix[]{C1, C2};
     }
 
     // Decapsulation function to derive the shared secret
-    public static byte[] decapsulate(Ciphertext ct, Matrix privateKey) {
-        Matrix C1 = ct.C1;
-        Matrix C2 = ct.C2;
+    public static byte[] decapsulate(Ciphertext ct, NoiseMatrix privateKey) {
+        KemMetrics.Scope scope = KemMetrics.begin(KemMetrics.Operation.DECAPSULATE);
+        try {
+            byte[] sharedSecret = decapsulateRows(ct, privateKey, scope != null);
+            KemMetrics.end(scope);
+            return sharedSecret;
+        } catch (RuntimeException e) {
+            KemMetrics.fail(scope);
+            throw e;
+        }
+    }
 
-        // Compute derived secret matrix
-        Matrix derivedSecret = privateKey.transpose().multiply(C1).mod(Constants.Q);
-        Matrix sharedSecretMatrix = C2.subtract(derivedSecret).mod(Constants.Q);
+    // Rejects ciphertexts and keys whose shapes do not match the parameter set before any
+    // row is computed or hashed
+    static void checkDimensions(Ciphertext ct, NoiseMatrix privateKey) {
+        FrodoParams params = ct.params;
+        if (ct.C1.rows != params.mBar || ct.C1.cols != params.n
+                || ct.C2.rows != params.mBar || ct.C2.cols != params.nBar) {
+            throw new IllegalArgumentException("Ciphertext has the wrong dimensions for " + params + ".");
+        }
+        if (privateKey.rows != params.n || privateKey.cols != params.nBar) {
+            throw new IllegalArgumentException("Private key must be an n x nBar matrix for " + params + ".");
+        }
+    }
 
-        // Hash the shared secret matrix to derive the shared secret
-        return hashMatrix(sharedSecretMatrix);
+    private static byte[] decapsulateRows(Ciphertext ct, NoiseMatrix privateKey, boolean timed) {
+        checkDimensions(ct, privateKey);
+        ModQMatrix C1 = ct.C1;
+        ModQMatrix C2 = ct.C2;
+        int q = ct.params.q;
+
+        // Each row of the mBar x nBar shared secret matrix (C2 - C1 * S) mod Q is hashed as soon
+        // as it is computed, so the matrix itself is never materialized
+        MatrixHasher hasher = HASHER.get();
+        int[] row = new int[C2.cols];
+        // The SIMD kernels take S transposed so each coefficient is a contiguous dot product
+        SimdKernels vector = MatrixKernels.simd();
+        byte[] sT = vector != null ? NarrowKernels.transpose(privateKey.data, C1.cols, C2.cols) : null;
+        long multiplyNanos = 0;
+        long hashingNanos = 0;
+        byte[] sharedSecret = null;
+        try {
+            for (int i = 0; i < C2.rows; i++) {
+                long start = timed ? System.nanoTime() : 0;
+                if (sT != null) {
+                    NarrowKernels.modQSubtractProductModRowTransposed(vector, C2.data, C1.data, sT, row, i, C1.cols, C2.cols, q);
+                } else {
+                    NarrowKernels.modQSubtractProductModRow(C2.data, C1.data, privateKey.data, row, i, C1.cols, C2.cols, q);
+                }
+                long computed = timed ? System.nanoTime() : 0;
+                hasher.absorb(row, 0, row.length);
+                if (timed) {
+                    multiplyNanos += computed - start;
+                    hashingNanos += System.nanoTime() - computed;
+                }
+            }
+            long finish = timed ? System.nanoTime() : 0;
+            sharedSecret = hasher.finish();
+            hashingNanos += timed ? System.nanoTime() - finish : 0;
+        } finally {
+            Arrays.fill(row, 0);
+            if (sT != null) {
+                Arrays.fill(sT, (byte) 0);
+            }
+            if (sharedSecret == null) {
+                // Never leave a partial absorb in the per-thread hasher
+                hasher.reset();
+            }
+        }
+        if (timed) {
+            KemMetrics.recordPhase(KemMetrics.Phase.MULTIPLY, multiplyNanos);
+            KemMetrics.recordPhase(KemMetrics.Phase.HASHING, hashingNanos);
+        }
+        return sharedSecret;
     }
 
     // Hash the shared secret matrix to produce a byte array
     public static byte[] hashMatrix(Matrix matrix) {
+        return hashMatrix(matrix, MatrixHasher.Encoding.BINARY);
+    }
+
+    // Hash with an explicit coefficient encoding; DECIMAL reproduces vectors made before the binary encoding
+    public static byte[] hashMatrix(Matrix matrix, MatrixHasher.Encoding encoding) {
         // Use SHAKE-256 for hashing the shared secret matrix
-        SHAKEDigest shake256 = new SHAKEDigest(256);
-        for (int i = 0; i < matrix.rows; i++) {
-            for (int j = 0; j < matrix.cols; j++) {
-                byte[] elementBytes = Integer.toString(matrix.get(i, j)).getBytes();
-                shake256.update(elementBytes, 0, elementBytes.length);
-            }
-        }
-        byte[] output = new byte[32]; // 256 bits = 32 bytes
-        shake256.doFinal(output, 0, output.length);
-        return output;
+        long hashing = KemMetrics.phaseStart();
+        MatrixHasher hasher = new MatrixHasher(encoding);
+        hasher.absorb(matrix);
+        byte[] digest = hasher.finish();
+        KemMetrics.phaseEnd(KemMetrics.Phase.HASHING, hashing);
+        return digest;
     }
 }
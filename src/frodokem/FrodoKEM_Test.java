@@ -4,7 +4,14 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 public class FrodoKEM_Test {
 
@@ -16,18 +23,31 @@ public class FrodoKEM_Test {
         // Ensure output folder exists
         createOutputFolder();
 
+        // Draw all randomness from the stream seeded with Constants.SEED so runs are reproducible
+        CSPRNG.useDeterministicSeed(Constants.SEED);
+
+        // Record encapsulation randomness (random_r/e1/e2) in the background
+        AsyncTranscriptWriter transcript = new AsyncTranscriptWriter(OUTPUT_FOLDER);
+        FrodoKEM.setTranscriptSink(transcript);
+
+        // Time every phase of the run; the table is written to metrics.txt at the end
+        KemMetrics.setEnabled(true);
+
         // Step 1: Key Generation
         System.out.println("[Step 1: Key Generation]");
         FrodoKEM.KeyPair keyPair = FrodoKEM.keyGen();
 
         // Save Public and Private Keys
         System.out.println("Public Key:");
-        keyPair.publicKey.print();
-        writeMatrixToFile(keyPair.publicKey, "public_key.txt");
+        keyPair.publicKey.B.print();
+        writeMatrixToFile(keyPair.publicKey.B.toMatrix(), "public_key.txt");
+        System.out.println("Seed A: " + bytesToHex(keyPair.publicKey.seedA));
+        writeToFile("Seed A: " + bytesToHex(keyPair.publicKey.seedA), "seed_A.txt");
 
         System.out.println("Private Key:");
         keyPair.privateKey.print();
-        writeMatrixToFile(keyPair.privateKey, "private_key.txt");
+        writeMatrixToFile(keyPair.privateKey.toMatrix(), "private_key.txt");
+        writeBinaryFile(FrodoSerializer.encode(keyPair), "key_pair.bin");
 
         // Step 2: Encapsulation
         System.out.println("[Step 2: Encapsulation]");
@@ -36,18 +56,18 @@ public class FrodoKEM_Test {
         // Save Ciphertext Matrices
         System.out.println("Ciphertext C1:");
         ciphertext.C1.print();
-        writeMatrixToFile(ciphertext.C1, "ciphertext_C1.txt");
+        writeMatrixToFile(ciphertext.C1.toMatrix(), "ciphertext_C1.txt");
 
         System.out.println("Ciphertext C2:");
         ciphertext.C2.print();
-        writeMatrixToFile(ciphertext.C2, "ciphertext_C2.txt");
+        writeMatrixToFile(ciphertext.C2.toMatrix(), "ciphertext_C2.txt");
+        writeBinaryFile(FrodoSerializer.encode(ciphertext), "ciphertext.bin");
         // Save randomness
         
 
-        // Generate shared secret during encapsulation
-        byte[] sharedSecretEncapsulation = FrodoKEM.hashMatrix(
-                ciphertext.C2.subtract(keyPair.privateKey.transpose().multiply(ciphertext.C1).mod(Constants.Q)).mod(Constants.Q)
-        );
+        // Generate shared secret during encapsulation, through a prepared decapsulation context
+        DecapsulationContext context = DecapsulationContext.of(keyPair);
+        byte[] sharedSecretEncapsulation = context.decapsulate(ciphertext);
 
         System.out.println("Shared Secret (Encapsulation): " + bytesToHex(sharedSecretEncapsulation));
         writeToFile("Shared Secret (Encapsulation): " + bytesToHex(sharedSecretEncapsulation), "shared_secret_encapsulation.txt");
@@ -59,12 +79,164 @@ public class FrodoKEM_Test {
         System.out.println("Shared Secret (Decapsulation): " + bytesToHex(sharedSecretDecapsulation));
         writeToFile("Shared Secret (Decapsulation): " + bytesToHex(sharedSecretDecapsulation), "shared_secret_decapsulation.txt");
 
+        // Flush the recorded randomness before reporting
+        FrodoKEM.setTranscriptSink(null);
+        transcript.close();
+        if (transcript.droppedCount() > 0) {
+            System.err.println("Transcript entries dropped: " + transcript.droppedCount());
+        }
+
+        writeToFile(KemMetrics.dump(), "metrics.txt");
+
+        // The Vector API kernels must reproduce the scalar loops bit for bit
+        boolean vectorMatches = vectorMatchesScalar();
+
+        // Strassen-Winograd must reproduce the blocked kernel bit for bit
+        boolean strassenMatches = strassenMatchesBlocked();
+
         // Verify if both shared secrets match
-        boolean success = Arrays.equals(sharedSecretEncapsulation, sharedSecretDecapsulation);
+        boolean success = Arrays.equals(sharedSecretEncapsulation, sharedSecretDecapsulation)
+                && vectorMatches && strassenMatches;
         System.out.println("\nTest " + (success ? "PASSED" : "FAILED"));
         writeToFile("Test " + (success ? "PASSED" : "FAILED"), "test_result.txt");
     } 
 
+    // Runs every kernel once on the Vector API and once on the scalar loops from the same inputs
+    // and compares the outputs; skipped when jdk.incubator.vector is not loaded
+    private static boolean vectorMatchesScalar() {
+        if (!Matrix.isVectorApiAvailable()) {
+            System.out.println("Vector kernels: not available, comparison skipped");
+            return true;
+        }
+        boolean vectorized = Matrix.isVectorized();
+        String backend;
+        boolean matches = true;
+        try {
+            Matrix.setVectorized(true);
+            backend = Matrix.kernelBackend();
+            for (FrodoParams params : FrodoParams.values()) {
+                byte[][] vector = kemOutputs(params);
+                Matrix.setVectorized(false);
+                byte[][] scalar = kemOutputs(params);
+                Matrix.setVectorized(true);
+                if (!Arrays.deepEquals(vector, scalar)) {
+                    System.err.println("Vector and scalar KEM outputs differ for " + params);
+                    matches = false;
+                }
+            }
+            // Odd sizes leave a scalar tail after the last full vector in every row
+            Random random = new Random(7);
+            int q = 1 << 15;
+            Matrix a = randomMatrix(random, 37, 131, q);
+            Matrix b = randomMatrix(random, 131, 45, q);
+            Matrix d = randomMatrix(random, 37, 45, q);
+            Matrix[] vector = products(a, b, d, q);
+            Matrix.setVectorized(false);
+            Matrix[] scalar = products(a, b, d, q);
+            for (int i = 0; i < vector.length; i++) {
+                if (!Arrays.equals(vector[i].data, scalar[i].data)) {
+                    System.err.println("Vector and scalar Matrix product " + i + " differ");
+                    matches = false;
+                }
+            }
+        } finally {
+            Matrix.setVectorized(vectorized);
+        }
+        System.out.println("Vector kernels (" + backend + ") match scalar: " + (matches ? "yes" : "NO"));
+        return matches;
+    }
+
+    // Runs multiply, multiplyAddMod and subtractProductMod under every MultiplyStrategy, on shapes
+    // that need padding or an odd split, sequentially and on a pool, against sequential BLOCKED
+    private static boolean strassenMatchesBlocked() {
+        int[][] shapes = {{257, 257, 257}, {300, 260, 390}, {384, 384, 384}, {513, 129, 200}};
+        int[] cutoffs = {64, Matrix.DEFAULT_STRASSEN_CUTOFF};
+        int q = 1 << 16;
+        Random random = new Random(11);
+        ForkJoinPool previousPool = Matrix.getExecutionPool();
+        long previousThreshold = MatrixKernels.parallelThreshold();
+        Matrix.MultiplyStrategy previousStrategy = MatrixKernels.multiplyStrategy();
+        int previousCutoff = MatrixKernels.strassenCutoff();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        boolean matches = true;
+        try {
+            for (int[] shape : shapes) {
+                Matrix a = randomMatrix(random, shape[0], shape[1], q);
+                Matrix b = randomMatrix(random, shape[1], shape[2], q);
+                Matrix d = randomMatrix(random, shape[0], shape[2], q);
+                Matrix.setParallelism(null, Matrix.DEFAULT_PARALLEL_THRESHOLD);
+                Matrix.setMultiplyStrategy(Matrix.MultiplyStrategy.BLOCKED, Matrix.DEFAULT_STRASSEN_CUTOFF);
+                Matrix[] expected = products(a, b, d, q);
+                for (ForkJoinPool executionPool : new ForkJoinPool[]{null, pool}) {
+                    Matrix.setParallelism(executionPool, Matrix.DEFAULT_PARALLEL_THRESHOLD);
+                    for (int cutoff : cutoffs) {
+                        for (Matrix.MultiplyStrategy strategy : Matrix.MultiplyStrategy.values()) {
+                            Matrix.setMultiplyStrategy(strategy, cutoff);
+                            Matrix[] actual = products(a, b, d, q);
+                            for (int i = 0; i < actual.length; i++) {
+                                if (!Arrays.equals(expected[i].data, actual[i].data)) {
+                                    System.err.println(strategy + " product " + i + " differs from BLOCKED for "
+                                            + Arrays.toString(shape) + ", cutoff " + cutoff
+                                            + (executionPool == null ? ", sequential" : ", parallel"));
+                                    matches = false;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            Matrix.setMultiplyStrategy(previousStrategy, previousCutoff);
+            Matrix.setParallelism(previousPool, previousThreshold);
+            pool.shutdown();
+        }
+        System.out.println("Strassen matches blocked multiply: " + (matches ? "yes" : "NO"));
+        return matches;
+    }
+
+    private static Matrix[] products(Matrix a, Matrix b, Matrix d, int q) {
+        return new Matrix[]{a.multiply(b), a.multiplyAddMod(b, d, q), d.subtractProductMod(a, b, q)};
+    }
+
+    // Key pair, single and batched ciphertexts and the shared secrets of every decapsulation
+    // path, all derived from fixed seeds so that two runs see the same inputs
+    private static byte[][] kemOutputs(FrodoParams params) {
+        FrodoKEM.KeyPair keyPair = FrodoKEM.keyGen(params, new ShakeRandomSource(new byte[]{1}));
+        FrodoKEM.KeyPair other = FrodoKEM.keyGen(params, new ShakeRandomSource(new byte[]{2}));
+        FrodoKEM.Ciphertext ct = FrodoKEM.encapsulate(keyPair.publicKey, new ShakeRandomSource(new byte[]{3}));
+        List<FrodoKEM.Ciphertext> batch = FrodoKEM.encapsulateBatch(
+                List.of(keyPair.publicKey, other.publicKey), new ShakeRandomSource(new byte[]{4}));
+        ModQMatrix secretMatrix = ct.C2.subtractProductMod(ct.C1, keyPair.privateKey, params.q);
+        try (DecapsulationContext context = DecapsulationContext.of(keyPair)) {
+            return new byte[][]{
+                    toBytes(FrodoSerializer.encode(keyPair)),
+                    toBytes(FrodoSerializer.encode(ct)),
+                    toBytes(FrodoSerializer.encode(batch.get(0))),
+                    toBytes(FrodoSerializer.encode(batch.get(1))),
+                    FrodoKEM.decapsulate(ct, keyPair.privateKey),
+                    context.decapsulate(ct),
+                    FrodoKEM.decapsulate(batch.get(1), other.privateKey),
+                    FrodoKEM.hashMatrix(secretMatrix.toMatrix())
+            };
+        }
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static Matrix randomMatrix(Random random, int rows, int cols, int bound) {
+        Matrix matrix = new Matrix(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                matrix.set(i, j, random.nextInt(bound));
+            }
+        }
+        return matrix;
+    }
+
     // Ensure the output folder exists
     private static void createOutputFolder() {
         File folder = new File(OUTPUT_FOLDER);
@@ -92,6 +264,16 @@ public class FrodoKEM_Test {
         }
     }
 
+    // Write an encoded key or ciphertext in the binary FrodoSerializer format
+    private static void writeBinaryFile(ByteBuffer encoded, String fileName) {
+        try (FileChannel channel = FileChannel.open(Paths.get(OUTPUT_FOLDER, fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            FrodoSerializer.writeTo(channel, encoded);
+        } catch (IOException e) {
+            System.err.println("Error writing binary file " + fileName + ": " + e.getMessage());
+        }
+    }
+
     // Write textual content to a text file
     private static void writeToFile(String content, String fileName) {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(OUTPUT_FOLDER + "/" + fileName))) {
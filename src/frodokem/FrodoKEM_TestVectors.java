@@ -4,15 +4,28 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 public class FrodoKEM_TestVectors {
 
     private static final String OUTPUT_FOLDER = "output";
 
     public static void main(String[] args) {
+        if (args.length > 0 && (args[0].equals("--kat") || args[0].equals("--generate-kat"))) {
+            runKat(args);
+            return;
+        }
         System.out.println("=== FrodoKEM Test Vectors ===");
 
+        // Vectors written before the n x nBar parameter sets used C1 = A * r + e1 and C2 - S^T * C1
+        boolean legacy = args.length > 0 && args[0].equals("--legacy");
+        FrodoParams params = Constants.PARAMS;
+
         try {
             // Step 1: Load saved data from the output folder
             System.out.println("\n[Step 1: Load Saved Data]");
@@ -32,19 +45,24 @@ public class FrodoKEM_TestVectors {
             System.out.println("Loaded Ciphertext C2:");
             ciphertextC2.print();
 
-            // Load saved randomness
-            Matrix A = readMatrixFromFile(OUTPUT_FOLDER + "/random_A.txt");
+            // Load saved randomness; A is re-expanded from the public key seed unless the vector is legacy
+            Matrix legacyA = legacy ? readMatrixFromFile(OUTPUT_FOLDER + "/random_A.txt") : null;
+            MatrixA A = legacy ? null : new MatrixA(params, readHexFromFile(OUTPUT_FOLDER + "/seed_A.txt"));
             Matrix r = readMatrixFromFile(OUTPUT_FOLDER + "/random_r.txt");
             Matrix e1 = readMatrixFromFile(OUTPUT_FOLDER + "/random_e1.txt");
             Matrix e2 = readMatrixFromFile(OUTPUT_FOLDER + "/random_e2.txt");
 
-            // Recompute C1 = (A * r + e1) mod Q
-            Matrix recomputedCiphertext_C1 = A.multiply(r).add(e1).mod(Constants.Q);
+            // Recompute C1 = (r * A + e1) mod Q
+            Matrix recomputedCiphertext_C1 = legacy
+                    ? legacyA.multiplyAddMod(r, e1, params.q)
+                    : A.leftMultiplyAddMod(NoiseMatrix.from(r), NoiseMatrix.from(e1)).toMatrix();
             System.out.println("Recomputed Ciphertext C1:");
             recomputedCiphertext_C1.print();
 
-            // Recompute C2 = (publicKey * r + e2) mod Q
-            Matrix recomputedCiphertext_C2 = publicKey.multiply(r).add(e2).mod(Constants.Q);
+            // Recompute C2 = (r * publicKey + e2) mod Q
+            Matrix recomputedCiphertext_C2 = legacy
+                    ? publicKey.multiplyAddMod(r, e2, params.q)
+                    : r.multiplyAddMod(publicKey, e2, params.q);
             System.out.println("Recomputed Ciphertext C2:");
             recomputedCiphertext_C2.print();
 
@@ -58,10 +76,14 @@ public class FrodoKEM_TestVectors {
 
             // Step 3: Validate Shared Secrets
             System.out.println("\n[Step 3: Validate Shared Secrets]");
-            byte[] sharedSecretEncapsulation = readSharedSecretFromFile(OUTPUT_FOLDER + "/shared_secret_encapsulation.txt");
-            byte[] sharedSecretDecapsulation = readSharedSecretFromFile(OUTPUT_FOLDER + "/shared_secret_decapsulation.txt");
+            byte[] sharedSecretEncapsulation = readHexFromFile(OUTPUT_FOLDER + "/shared_secret_encapsulation.txt");
+            byte[] sharedSecretDecapsulation = readHexFromFile(OUTPUT_FOLDER + "/shared_secret_decapsulation.txt");
 
-            byte[] recomputedSharedSecret = FrodoKEM.decapsulate(new FrodoKEM.Ciphertext(ciphertextC1, ciphertextC2), privateKey);
+            byte[] recomputedSharedSecret = legacy
+                    ? FrodoKEM.hashMatrix(ciphertextC2.subtractTransposedProductMod(privateKey, ciphertextC1, params.q),
+                            MatrixHasher.Encoding.DECIMAL)
+                    : FrodoKEM.decapsulate(new FrodoKEM.Ciphertext(params, ModQMatrix.from(ciphertextC1),
+                            ModQMatrix.from(ciphertextC2)), NoiseMatrix.from(privateKey));
 
             System.out.println("Recomputed Shared Secret (Encapsulation): " + bytesToHex(sharedSecretEncapsulation));
             System.out.println("Recomputed Shared Secret (Decapsulation): " + bytesToHex(recomputedSharedSecret));
@@ -72,8 +94,23 @@ public class FrodoKEM_TestVectors {
             System.out.println("Shared Secret Encapsulation Matches: " + encapsulationMatches);
             System.out.println("Shared Secret Decapsulation Matches: " + decapsulationMatches);
 
+            // Step 4: The binary copies, when present, must decode to the same matrices
+            boolean binaryMatches = true;
+            Path keyPairFile = Paths.get(OUTPUT_FOLDER, "key_pair.bin");
+            Path ciphertextFile = Paths.get(OUTPUT_FOLDER, "ciphertext.bin");
+            if (!legacy && Files.exists(keyPairFile) && Files.exists(ciphertextFile)) {
+                System.out.println("\n[Step 4: Validate Binary Encoding]");
+                FrodoKEM.KeyPair binaryKeyPair = FrodoSerializer.mapKeyPair(keyPairFile);
+                FrodoKEM.Ciphertext binaryCiphertext = FrodoSerializer.mapCiphertext(ciphertextFile);
+                binaryMatches = compareMatrices(publicKey, binaryKeyPair.publicKey.B.toMatrix())
+                        && compareMatrices(privateKey, binaryKeyPair.privateKey.toMatrix())
+                        && compareMatrices(ciphertextC1, binaryCiphertext.C1.toMatrix())
+                        && compareMatrices(ciphertextC2, binaryCiphertext.C2.toMatrix());
+                System.out.println("Binary Encoding Matches: " + binaryMatches);
+            }
+
             // Final result
-            boolean success = c1Matches && c2Matches && encapsulationMatches && decapsulationMatches;
+            boolean success = c1Matches && c2Matches && encapsulationMatches && decapsulationMatches && binaryMatches;
             System.out.println("\nTest Vectors Validation " + (success ? "PASSED" : "FAILED"));
 
         } catch (IOException e) {
@@ -81,27 +118,86 @@ public class FrodoKEM_TestVectors {
         }
     }
 
+    // KAT batch mode over binary vector files (see KatVectors):
+    //   --kat <file> [--threads N] [--max-failures N]
+    //   --generate-kat <file> <count> [--threads N] [--seed HEX]
+    // Vectors are validated concurrently, so each one runs its matrix products sequentially.
+    // Exits with 1 when a vector fails, and 2 on bad arguments or I/O errors, so CI can gate on it
+    private static void runKat(String[] args) {
+        boolean generate = args[0].equals("--generate-kat");
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxFailures = 10;
+        byte[] seed = new byte[KatVectors.SEED_BYTES];
+        List<String> positional = new ArrayList<>();
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads" -> threads = Integer.parseInt(args[++i]);
+                    case "--max-failures" -> maxFailures = Integer.parseInt(args[++i]);
+                    case "--seed" -> seed = hexStringToByteArray(args[++i]);
+                    default -> positional.add(args[i]);
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            positional.clear(); // Falls through to the usage message
+        }
+        if (positional.size() != (generate ? 2 : 1)) {
+            System.err.println("Usage: --kat <file> [--threads N] [--max-failures N]");
+            System.err.println("       --generate-kat <file> <count> [--threads N] [--seed HEX]");
+            System.exit(2);
+        }
+        Path file = Paths.get(positional.get(0));
+        Matrix.setParallelism(null, Matrix.DEFAULT_PARALLEL_THRESHOLD);
+        try {
+            if (generate) {
+                int count = Integer.parseInt(positional.get(1));
+                long started = System.nanoTime();
+                KatVectors.generate(file, Constants.PARAMS, count, seed, threads);
+                System.out.printf("Generated %d %s vectors in %.2f s: %s%n", count, Constants.PARAMS,
+                        (System.nanoTime() - started) / 1e9, file);
+                return;
+            }
+            System.out.println("=== FrodoKEM KAT Batch ===");
+            KatVectors.Report report = KatVectors.verify(file, threads, maxFailures);
+            for (KatVectors.Mismatch mismatch : report.mismatches) {
+                System.out.println("Mismatch: " + mismatch);
+            }
+            System.out.println(report);
+            System.out.println("\nKAT Validation " + (report.passed() ? "PASSED" : "FAILED"));
+            if (!report.passed()) {
+                System.exit(1);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error processing KAT file: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
     // Helper to read a matrix from a file
     private static Matrix readMatrixFromFile(String fileName) throws IOException {
         File file = new File(fileName);
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String line;
-            int[][] tempData = new int[Constants.MATRIX_SIZE][Constants.MATRIX_SIZE];
-            int row = 0;
+            // Dimensions depend on the parameter set and on which matrix is stored, so collect rows first
+            List<int[]> rows = new ArrayList<>();
 
             while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
                 String[] values = line.trim().split("\t");
+                int[] row = new int[values.length];
                 for (int col = 0; col < values.length; col++) {
-                    tempData[row][col] = Integer.parseInt(values[col]);
+                    row[col] = Integer.parseInt(values[col]);
                 }
-                row++;
+                rows.add(row);
             }
-            return new Matrix(tempData);
+            return new Matrix(rows.toArray(new int[0][]));
         }
     }
 
-    // Helper to read shared secret from a file
-    private static byte[] readSharedSecretFromFile(String fileName) throws IOException {
+    // Helper to read a labelled hex value (shared secret or seed) from a file
+    private static byte[] readHexFromFile(String fileName) throws IOException {
         File file = new File(fileName);
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             String hexString = reader.readLine().trim().split(":")[1].trim(); // Extract hex part
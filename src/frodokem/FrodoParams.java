@@ -0,0 +1,99 @@
+package frodokem;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// FrodoKEM parameter sets: A is n x n, secrets S and E are n x nBar, and the encapsulation
+// side uses mBar x n ephemeral matrices, as in the FrodoKEM specification
+public final class FrodoParams {
+    // Cumulative distribution tables of the error distribution, scaled to 2^15 (from the specification)
+    private static final int[] CDF_640 =
+            {4643, 13363, 20579, 25843, 29227, 31145, 32103, 32525, 32689, 32745, 32762, 32766, 32767};
+    private static final int[] CDF_976 =
+            {5638, 15915, 23689, 28571, 31116, 32217, 32613, 32731, 32760, 32766, 32767};
+    private static final int[] CDF_1344 =
+            {9142, 23462, 30338, 32361, 32725, 32765, 32767};
+
+    // SHAKE128 expansion of A
+    public static final FrodoParams FRODOKEM_640 =
+            new FrodoParams(0, "FrodoKEM-640", 640, 8, 8, 15, 2.8, CDF_640, MatrixA.Expansion.SHAKE128);
+    public static final FrodoParams FRODOKEM_976 =
+            new FrodoParams(1, "FrodoKEM-976", 976, 8, 8, 16, 2.3, CDF_976, MatrixA.Expansion.SHAKE128);
+    public static final FrodoParams FRODOKEM_1344 =
+            new FrodoParams(2, "FrodoKEM-1344", 1344, 8, 8, 16, 1.4, CDF_1344, MatrixA.Expansion.SHAKE128);
+
+    // AES-128 expansion of A, for hosts with hardware AES
+    public static final FrodoParams FRODOKEM_640_AES =
+            new FrodoParams(3, "FrodoKEM-640-AES", 640, 8, 8, 15, 2.8, CDF_640, MatrixA.Expansion.AES128);
+    public static final FrodoParams FRODOKEM_976_AES =
+            new FrodoParams(4, "FrodoKEM-976-AES", 976, 8, 8, 16, 2.3, CDF_976, MatrixA.Expansion.AES128);
+    public static final FrodoParams FRODOKEM_1344_AES =
+            new FrodoParams(5, "FrodoKEM-1344-AES", 1344, 8, 8, 16, 1.4, CDF_1344, MatrixA.Expansion.AES128);
+
+    private static final List<FrodoParams> ALL = Collections.unmodifiableList(Arrays.asList(
+            FRODOKEM_640, FRODOKEM_976, FRODOKEM_1344, FRODOKEM_640_AES, FRODOKEM_976_AES, FRODOKEM_1344_AES));
+
+    private final int id; // Written to serialized headers, so never renumber
+    public final String name;
+    public final int n; // Dimension of A
+    public final int nBar; // Columns of the secret S and public key B
+    public final int mBar; // Rows of the encapsulation-side ephemeral secret
+    public final int logQ;
+    public final int q; // Modulus, always a power of two
+    public final double sigma; // Standard deviation of the error distribution
+    final int[] cdfTable; // Used by NoiseSampler
+    public final MatrixA.Expansion expansion; // How A is derived from seedA
+
+    private FrodoParams(int id, String name, int n, int nBar, int mBar, int logQ, double sigma, int[] cdfTable,
+                        MatrixA.Expansion expansion) {
+        this.id = id;
+        this.name = name;
+        this.n = n;
+        this.nBar = nBar;
+        this.mBar = mBar;
+        this.logQ = logQ;
+        this.q = 1 << logQ;
+        this.sigma = sigma;
+        this.cdfTable = cdfTable;
+        this.expansion = expansion;
+    }
+
+    // SHAKE security strength used for seed expansion: SHAKE128 for FrodoKEM-640, SHAKE256 above
+    public int xofStrength() {
+        return n == 640 ? 128 : 256;
+    }
+
+    public static List<FrodoParams> values() {
+        return ALL;
+    }
+
+    // Stable numeric identifier used in serialized headers
+    public int id() {
+        return id;
+    }
+
+    public static FrodoParams byId(int id) {
+        for (FrodoParams params : ALL) {
+            if (params.id == id) {
+                return params;
+            }
+        }
+        throw new IllegalArgumentException("Unknown FrodoKEM parameter set id: " + id);
+    }
+
+    // Looks up a parameter set by name, e.g. "FrodoKEM-976"
+    public static FrodoParams byName(String name) {
+        for (FrodoParams params : ALL) {
+            if (params.name.equalsIgnoreCase(name)) {
+                return params;
+            }
+        }
+        throw new IllegalArgumentException("Unknown FrodoKEM parameter set: " + name);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
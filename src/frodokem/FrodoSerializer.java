@@ -0,0 +1,320 @@
+package frodokem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Compact binary encoding of keys and ciphertexts.
+// Every blob starts with an 8-byte header: "FRDO", format version, payload type, parameter set id, 0.
+// Public values (B, C1, C2) are packed logQ bits per coefficient, most significant bit first, as
+// Frodo.Pack does; the secret S is stored as little-endian 16-bit two's complement
+public final class FrodoSerializer {
+    public static final int HEADER_BYTES = 8;
+    static final byte VERSION = 1;
+
+    public static final byte TYPE_PUBLIC_KEY = 1;
+    public static final byte TYPE_KEY_PAIR = 2;
+    public static final byte TYPE_CIPHERTEXT = 3;
+    public static final byte TYPE_KAT_FILE = 4; // Known-answer vectors, see KatVectors
+
+    private static final byte[] MAGIC = {'F', 'R', 'D', 'O'};
+
+    private FrodoSerializer() {
+    }
+
+    public static int packedLength(int rows, int cols, int logQ) {
+        return (int) (((long) rows * cols * logQ + 7) / 8);
+    }
+
+    public static int publicKeyLength(FrodoParams params) {
+        return HEADER_BYTES + publicKeyBodyLength(params);
+    }
+
+    public static int keyPairLength(FrodoParams params) {
+        return HEADER_BYTES + publicKeyBodyLength(params) + 2 * params.n * params.nBar;
+    }
+
+    public static int ciphertextLength(FrodoParams params) {
+        return HEADER_BYTES + packedLength(params.mBar, params.n, params.logQ)
+                + packedLength(params.mBar, params.nBar, params.logQ);
+    }
+
+    private static int publicKeyBodyLength(FrodoParams params) {
+        return MatrixA.SEED_BYTES + packedLength(params.n, params.nBar, params.logQ);
+    }
+
+    public static ByteBuffer encode(FrodoKEM.PublicKey publicKey) {
+        ByteBuffer out = ByteBuffer.allocate(publicKeyLength(publicKey.params));
+        putHeader(out, TYPE_PUBLIC_KEY, publicKey.params);
+        putPublicKeyBody(out, publicKey);
+        return out.flip();
+    }
+
+    public static ByteBuffer encode(FrodoKEM.KeyPair keyPair) {
+        ByteBuffer out = ByteBuffer.allocate(keyPairLength(keyPair.params));
+        putHeader(out, TYPE_KEY_PAIR, keyPair.params);
+        putPublicKeyBody(out, keyPair.publicKey);
+        putSigned16(out, keyPair.privateKey);
+        return out.flip();
+    }
+
+    public static ByteBuffer encode(FrodoKEM.Ciphertext ciphertext) {
+        ByteBuffer out = ByteBuffer.allocate(ciphertextLength(ciphertext.params));
+        putHeader(out, TYPE_CIPHERTEXT, ciphertext.params);
+        pack(out, ciphertext.C1, ciphertext.params.logQ);
+        pack(out, ciphertext.C2, ciphertext.params.logQ);
+        return out.flip();
+    }
+
+    public static FrodoKEM.PublicKey decodePublicKey(ByteBuffer in) {
+        FrodoParams params = readHeader(in, TYPE_PUBLIC_KEY);
+        return readPublicKeyBody(in, params);
+    }
+
+    public static FrodoKEM.KeyPair decodeKeyPair(ByteBuffer in) {
+        FrodoParams params = readHeader(in, TYPE_KEY_PAIR);
+        FrodoKEM.PublicKey publicKey = readPublicKeyBody(in, params);
+        NoiseMatrix privateKey = getSigned16(in, params.n, params.nBar);
+        return new FrodoKEM.KeyPair(publicKey, privateKey);
+    }
+
+    public static FrodoKEM.Ciphertext decodeCiphertext(ByteBuffer in) {
+        FrodoParams params = readHeader(in, TYPE_CIPHERTEXT);
+        ModQMatrix C1 = unpack(in, params.mBar, params.n, params.logQ);
+        ModQMatrix C2 = unpack(in, params.mBar, params.nBar, params.logQ);
+        return new FrodoKEM.Ciphertext(params, C1, C2);
+    }
+
+    public static void writeTo(WritableByteChannel channel, ByteBuffer encoded) throws IOException {
+        while (encoded.hasRemaining()) {
+            channel.write(encoded);
+        }
+    }
+
+    public static void write(FrodoKEM.KeyPair keyPair, Path path) throws IOException {
+        writeFile(encode(keyPair), path);
+    }
+
+    public static void write(FrodoKEM.PublicKey publicKey, Path path) throws IOException {
+        writeFile(encode(publicKey), path);
+    }
+
+    public static void write(FrodoKEM.Ciphertext ciphertext, Path path) throws IOException {
+        writeFile(encode(ciphertext), path);
+    }
+
+    public static FrodoKEM.KeyPair readKeyPair(Path path) throws IOException {
+        return decodeKeyPair(readFile(path));
+    }
+
+    public static FrodoKEM.PublicKey readPublicKey(Path path) throws IOException {
+        return decodePublicKey(readFile(path));
+    }
+
+    public static FrodoKEM.Ciphertext readCiphertext(Path path) throws IOException {
+        return decodeCiphertext(readFile(path));
+    }
+
+    // Memory-mapped read path for large key stores: the file is decoded straight from the page cache
+    public static FrodoKEM.KeyPair mapKeyPair(Path path) throws IOException {
+        return decodeKeyPair(mapFile(path));
+    }
+
+    public static FrodoKEM.PublicKey mapPublicKey(Path path) throws IOException {
+        return decodePublicKey(mapFile(path));
+    }
+
+    public static FrodoKEM.Ciphertext mapCiphertext(Path path) throws IOException {
+        return decodeCiphertext(mapFile(path));
+    }
+
+    private static void writeFile(ByteBuffer encoded, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeTo(channel, encoded);
+        }
+    }
+
+    private static ByteBuffer readFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large for a FrodoKEM object: " + path);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of file: " + path);
+                }
+            }
+            return buffer.flip();
+        }
+    }
+
+    private static MappedByteBuffer mapFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    static void putHeader(ByteBuffer out, byte type, FrodoParams params) {
+        out.put(MAGIC);
+        out.put(VERSION);
+        out.put(type);
+        out.put((byte) params.id());
+        out.put((byte) 0);
+    }
+
+    static FrodoParams readHeader(ByteBuffer in, byte expectedType) {
+        if (in.remaining() < HEADER_BYTES) {
+            throw new IllegalArgumentException("Input is too short for a FrodoKEM header.");
+        }
+        for (byte b : MAGIC) {
+            if (in.get() != b) {
+                throw new IllegalArgumentException("Input is not a FrodoKEM object.");
+            }
+        }
+        byte version = in.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported FrodoKEM format version: " + version);
+        }
+        byte type = in.get();
+        if (type != expectedType) {
+            throw new IllegalArgumentException("Expected payload type " + expectedType + " but found " + type + ".");
+        }
+        FrodoParams params = FrodoParams.byId(in.get());
+        in.get(); // Reserved
+        return params;
+    }
+
+    private static void putPublicKeyBody(ByteBuffer out, FrodoKEM.PublicKey publicKey) {
+        out.put(publicKey.seedA);
+        pack(out, publicKey.B, publicKey.params.logQ);
+    }
+
+    private static FrodoKEM.PublicKey readPublicKeyBody(ByteBuffer in, FrodoParams params) {
+        if (in.remaining() < MatrixA.SEED_BYTES) {
+            throw new IllegalArgumentException("Input is truncated.");
+        }
+        byte[] seedA = new byte[MatrixA.SEED_BYTES];
+        in.get(seedA);
+        ModQMatrix B = unpack(in, params.n, params.nBar, params.logQ);
+        return new FrodoKEM.PublicKey(params, seedA, B);
+    }
+
+    // Packs coefficients (taken mod 2^logQ) into logQ-bit big-endian fields
+    static void pack(ByteBuffer out, ModQMatrix matrix, int logQ) {
+        Packer packer = new Packer(out, null, logQ);
+        for (short value : matrix.data) {
+            packer.put(value);
+        }
+        packer.finish();
+    }
+
+    // Bit packer behind pack(), shared with StreamingEncapsulator so both produce the same bytes.
+    // With a channel, out is drained whenever it fills up; without one it must be large enough
+    static final class Packer {
+        private final ByteBuffer out;
+        private final WritableByteChannel channel;
+        private final int logQ;
+        private final int mask;
+        private long acc;
+        private int bits;
+
+        Packer(ByteBuffer out, WritableByteChannel channel, int logQ) {
+            this.out = out;
+            this.channel = channel;
+            this.logQ = logQ;
+            this.mask = (1 << logQ) - 1;
+        }
+
+        void put(int value) {
+            acc = (acc << logQ) | (value & mask);
+            bits += logQ;
+            while (bits >= 8) {
+                bits -= 8;
+                if (!out.hasRemaining()) {
+                    drain();
+                }
+                out.put((byte) (acc >>> bits));
+            }
+        }
+
+        // Pads the last partial byte with zero bits, as at the end of every packed matrix
+        void finish() {
+            if (bits > 0) {
+                if (!out.hasRemaining()) {
+                    drain();
+                }
+                out.put((byte) (acc << (8 - bits)));
+            }
+            acc = 0;
+            bits = 0;
+        }
+
+        // Writes everything buffered so far to the channel
+        void drain() {
+            if (channel == null) {
+                throw new BufferOverflowException();
+            }
+            out.flip();
+            try {
+                writeTo(channel, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            out.clear();
+        }
+    }
+
+    static ModQMatrix unpack(ByteBuffer in, int rows, int cols, int logQ) {
+        int length = packedLength(rows, cols, logQ);
+        if (in.remaining() < length) {
+            throw new IllegalArgumentException("Input is truncated.");
+        }
+        ModQMatrix matrix = new ModQMatrix(rows, cols);
+        short[] out = matrix.data;
+        int mask = (1 << logQ) - 1;
+        long acc = 0;
+        int bits = 0;
+        for (int i = 0; i < out.length; i++) {
+            while (bits < logQ) {
+                acc = (acc << 8) | (in.get() & 0xFF);
+                bits += 8;
+            }
+            bits -= logQ;
+            out[i] = (short) ((acc >>> bits) & mask);
+        }
+        return matrix;
+    }
+
+    private static void putSigned16(ByteBuffer out, NoiseMatrix matrix) {
+        for (byte value : matrix.data) {
+            out.put(value);
+            out.put((byte) (value >> 8)); // Sign extension
+        }
+    }
+
+    private static NoiseMatrix getSigned16(ByteBuffer in, int rows, int cols) {
+        if (in.remaining() < 2 * rows * cols) {
+            throw new IllegalArgumentException("Input is truncated.");
+        }
+        NoiseMatrix matrix = new NoiseMatrix(rows, cols);
+        byte[] out = matrix.data;
+        for (int i = 0; i < out.length; i++) {
+            int value = (short) ((in.get() & 0xFF) | ((in.get() & 0xFF) << 8));
+            if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Secret coefficient out of range: " + value);
+            }
+            out[i] = (byte) value;
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,264 @@
+package frodokem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Binary known-answer test files. A file is the FrodoSerializer header (type TYPE_KAT_FILE), a
+// big-endian 32-bit vector count, and then fixed-size records:
+//   seed (32 bytes) | encoded key pair | encoded ciphertext | shared secret (32 bytes)
+// A record is reproduced by keyGen(params, random) then encapsulate(publicKey, random) on one
+// stream random = CSPRNG.seeded(seed), and decapsulating the ciphertext with the key pair.
+// Records are checked in chunks that are memory-mapped independently, so files of any size
+// stream through a fixed amount of memory
+public final class KatVectors {
+    public static final int SEED_BYTES = 32;
+    private static final int COUNT_BYTES = 4;
+    private static final int BODY_OFFSET = FrodoSerializer.HEADER_BYTES + COUNT_BYTES;
+    // Records per work unit, for generation and verification alike
+    private static final int CHUNK_VECTORS = 16;
+
+    private KatVectors() {
+    }
+
+    public static int recordLength(FrodoParams params) {
+        return SEED_BYTES + FrodoSerializer.keyPairLength(params) + FrodoSerializer.ciphertextLength(params)
+                + MatrixHasher.OUTPUT_BYTES;
+    }
+
+    // One field of one vector that did not reproduce
+    public static final class Mismatch {
+        public final long vector;
+        public final String field; // "key pair", "ciphertext" or "shared secret"
+        public final int byteOffset; // First differing byte within the field
+
+        Mismatch(long vector, String field, int byteOffset) {
+            this.vector = vector;
+            this.field = field;
+            this.byteOffset = byteOffset;
+        }
+
+        @Override
+        public String toString() {
+            return "vector " + vector + ": " + field + " differs at byte " + byteOffset;
+        }
+    }
+
+    public static final class Report {
+        public final FrodoParams params;
+        public final long total; // Vectors in the file
+        public final long checked; // Vectors actually validated before finishing or stopping early
+        public final List<Mismatch> mismatches; // Sorted by vector
+        public final long elapsedNanos;
+        public final long bytes; // Record bytes validated
+
+        Report(FrodoParams params, long total, long checked, List<Mismatch> mismatches, long elapsedNanos, long bytes) {
+            this.params = params;
+            this.total = total;
+            this.checked = checked;
+            this.mismatches = mismatches;
+            this.elapsedNanos = elapsedNanos;
+            this.bytes = bytes;
+        }
+
+        public boolean passed() {
+            return mismatches.isEmpty() && checked == total;
+        }
+
+        public double vectorsPerSecond() {
+            return elapsedNanos == 0 ? 0 : checked * 1e9 / elapsedNanos;
+        }
+
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1 << 20);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d of %d vectors checked, %d mismatches, %.1f vectors/s, %.1f MB/s, %.2f s",
+                    params, checked, total, mismatches.size(), vectorsPerSecond(), megabytesPerSecond(),
+                    elapsedNanos / 1e9);
+        }
+    }
+
+    // Writes count vectors whose seeds are drawn in order from CSPRNG.seeded(masterSeed).
+    // Vectors are computed in parallel chunks and written in order
+    public static void generate(Path path, FrodoParams params, int count, byte[] masterSeed, int threads)
+            throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("Vector count must not be negative.");
+        }
+        int recordLength = recordLength(params);
+        ShakeRandomSource seeds = CSPRNG.seeded(masterSeed);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(BODY_OFFSET);
+            FrodoSerializer.putHeader(header, FrodoSerializer.TYPE_KAT_FILE, params);
+            header.putInt(count);
+            FrodoSerializer.writeTo(channel, header.flip());
+
+            // Keep a bounded number of chunks in flight: generation runs ahead of the writer by
+            // at most a few chunks per thread
+            int window = Math.max(1, threads) * 2;
+            List<Future<ByteBuffer>> pending = new ArrayList<>();
+            for (int start = 0; start < count || !pending.isEmpty(); ) {
+                while (start < count && pending.size() < window) {
+                    int size = Math.min(CHUNK_VECTORS, count - start);
+                    byte[][] chunkSeeds = new byte[size][SEED_BYTES];
+                    for (byte[] seed : chunkSeeds) {
+                        seeds.fill(seed);
+                    }
+                    pending.add(executor.submit(() -> generateChunk(params, chunkSeeds, recordLength)));
+                    start += size;
+                }
+                FrodoSerializer.writeTo(channel, await(pending.remove(0)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ByteBuffer generateChunk(FrodoParams params, byte[][] seeds, int recordLength) {
+        ByteBuffer out = ByteBuffer.allocate(seeds.length * recordLength);
+        for (byte[] seed : seeds) {
+            ShakeRandomSource random = CSPRNG.seeded(seed);
+            FrodoKEM.KeyPair keyPair = FrodoKEM.keyGen(params, random);
+            FrodoKEM.Ciphertext ciphertext = FrodoKEM.encapsulate(keyPair.publicKey, random);
+            out.put(seed);
+            out.put(FrodoSerializer.encode(keyPair));
+            out.put(FrodoSerializer.encode(ciphertext));
+            out.put(FrodoKEM.decapsulate(ciphertext, keyPair.privateKey));
+        }
+        return out.flip();
+    }
+
+    // Validates every vector on threads workers, stopping once maxFailures mismatches are found
+    // (0 means never stop early)
+    public static Report verify(Path path, int threads, int maxFailures) throws IOException {
+        long started = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(BODY_OFFSET);
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    throw new IllegalArgumentException("Input is too short for a FrodoKEM KAT file.");
+                }
+            }
+            header.flip();
+            FrodoParams params = FrodoSerializer.readHeader(header, FrodoSerializer.TYPE_KAT_FILE);
+            long total = Integer.toUnsignedLong(header.getInt());
+            int recordLength = recordLength(params);
+            if (channel.size() != BODY_OFFSET + total * recordLength) {
+                throw new IllegalArgumentException("KAT file holds " + (channel.size() - BODY_OFFSET)
+                        + " record bytes but " + total + " vectors need " + total * recordLength + ".");
+            }
+
+            AtomicBoolean stop = new AtomicBoolean();
+            AtomicInteger failures = new AtomicInteger();
+            AtomicLong checked = new AtomicLong();
+            ConcurrentLinkedQueue<Mismatch> mismatches = new ConcurrentLinkedQueue<>();
+            List<Callable<Void>> chunks = new ArrayList<>();
+            for (long start = 0; start < total; start += CHUNK_VECTORS) {
+                long first = start;
+                int size = (int) Math.min(CHUNK_VECTORS, total - start);
+                chunks.add(() -> {
+                    if (stop.get()) {
+                        return null;
+                    }
+                    MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY,
+                            BODY_OFFSET + first * recordLength, (long) size * recordLength);
+                    for (int i = 0; i < size && !stop.get(); i++) {
+                        ByteBuffer record = records.slice(i * recordLength, recordLength);
+                        Mismatch mismatch = check(params, first + i, record);
+                        checked.incrementAndGet();
+                        if (mismatch != null) {
+                            mismatches.add(mismatch);
+                            if (failures.incrementAndGet() >= maxFailures && maxFailures > 0) {
+                                stop.set(true);
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+            try {
+                for (Future<Void> future : executor.invokeAll(chunks)) {
+                    await(future);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while verifying " + path + ".", e);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            List<Mismatch> sorted = new ArrayList<>(mismatches);
+            sorted.sort(Comparator.comparingLong(m -> m.vector));
+            return new Report(params, total, checked.get(), sorted, System.nanoTime() - started,
+                    checked.get() * recordLength);
+        }
+    }
+
+    // Recomputes one record; returns the first field that differs, or null
+    private static Mismatch check(FrodoParams params, long vector, ByteBuffer record) {
+        byte[] seed = new byte[SEED_BYTES];
+        record.get(seed);
+        ShakeRandomSource random = CSPRNG.seeded(seed);
+        FrodoKEM.KeyPair keyPair = FrodoKEM.keyGen(params, random);
+        ByteBuffer expectedKeyPair = record.slice(record.position(), FrodoSerializer.keyPairLength(params));
+        int offset = expectedKeyPair.mismatch(FrodoSerializer.encode(keyPair));
+        if (offset >= 0) {
+            return new Mismatch(vector, "key pair", offset);
+        }
+        record.position(record.position() + expectedKeyPair.remaining());
+
+        FrodoKEM.Ciphertext ciphertext = FrodoKEM.encapsulate(keyPair.publicKey, random);
+        ByteBuffer expectedCiphertext = record.slice(record.position(), FrodoSerializer.ciphertextLength(params));
+        offset = expectedCiphertext.mismatch(FrodoSerializer.encode(ciphertext));
+        if (offset >= 0) {
+            return new Mismatch(vector, "ciphertext", offset);
+        }
+        record.position(record.position() + expectedCiphertext.remaining());
+
+        byte[] expectedSecret = new byte[MatrixHasher.OUTPUT_BYTES];
+        record.get(expectedSecret);
+        offset = Arrays.mismatch(expectedSecret, FrodoKEM.decapsulate(ciphertext, keyPair.privateKey));
+        return offset >= 0 ? new Mismatch(vector, "shared secret", offset) : null;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing KAT vectors.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package frodokem;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Operation counters and per-phase timings for the KEM pipeline. Disabled by default (enable with
+// setEnabled or -Dfrodokem.metrics=true); while disabled every hook is a single volatile read and
+// allocates nothing. Each phase histogram gets one sample per completed operation that ran the
+// phase: its time summed over every sub-step and over the threads that ran them, so for parallel
+// kernels it can exceed the wall time of the operation. Phases run outside any operation are
+// recorded as they finish. Allocated bytes are those of the calling thread only, when the JVM
+// supports per-thread allocation counters
+public final class KemMetrics {
+    public enum Operation {
+        KEY_GEN("keygen"),
+        ENCAPSULATE("encapsulate"),
+        ENCAPSULATE_BATCH("encapsulate_batch"),
+        ENCAPSULATE_STREAMING("encapsulate_stream"),
+        DECAPSULATE("decapsulate"),
+        DECAPSULATE_BATCH("decapsulate_batch");
+
+        final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
+    public enum Phase {
+        SAMPLING("sampling"), // Noise matrices from the SHAKE stream
+        A_EXPANSION("a_expansion"), // Rows of A from seedA
+        MULTIPLY("multiply"), // Products, including reductions fused into them
+        REDUCTION("reduction"), // Stand-alone combine and mod Q steps
+        HASHING("hashing"); // Shared-secret SHAKE-256
+
+        final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final String OBJECT_NAME = "frodokem:type=KemMetrics";
+
+    private static volatile boolean enabled = Boolean.getBoolean("frodokem.metrics");
+
+    private static final Map<Operation, OperationStats> OPERATIONS = new EnumMap<>(Operation.class);
+    private static final Map<Phase, LatencyHistogram> PHASES = new EnumMap<>(Phase.class);
+
+    static {
+        for (Operation operation : Operation.values()) {
+            OPERATIONS.put(operation, new OperationStats());
+        }
+        for (Phase phase : Phase.values()) {
+            PHASES.put(phase, new LatencyHistogram());
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean ALLOCATION = allocationCounter();
+
+    // Operation whose phases the current thread is timing, if any
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private KemMetrics() {
+    }
+
+    private static final class OperationStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+    }
+
+    // One in-flight operation; only created while metrics are enabled. Phase times are summed
+    // here, possibly from several threads, and recorded once when the operation ends
+    public static final class Scope {
+        private final Operation operation;
+        private final Scope outer; // Scope this one was begun inside of, restored on end/fail
+        private final AtomicLongArray phaseNanos = new AtomicLongArray(Phase.values().length);
+        private final long startNanos;
+        private final long startAllocated;
+
+        private Scope(Operation operation, Scope outer) {
+            this.operation = operation;
+            this.outer = outer;
+            this.startAllocated = ALLOCATION != null ? ALLOCATION.getCurrentThreadAllocatedBytes() : 0;
+            this.startNanos = System.nanoTime();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+            if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+                return counter;
+            }
+        }
+        return null;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    // Starts timing an operation; returns null (and costs nothing more) while disabled
+    public static Scope begin(Operation operation) {
+        if (!enabled) {
+            return null;
+        }
+        Scope scope = new Scope(operation, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static void end(Scope scope) {
+        if (scope == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - scope.startNanos;
+        restore(scope);
+        OperationStats stats = OPERATIONS.get(scope.operation);
+        stats.latency.record(elapsed);
+        if (ALLOCATION != null) {
+            stats.allocatedBytes.add(ALLOCATION.getCurrentThreadAllocatedBytes() - scope.startAllocated);
+        }
+        for (Phase phase : Phase.values()) {
+            long nanos = scope.phaseNanos.get(phase.ordinal());
+            if (nanos > 0) {
+                PHASES.get(phase).record(nanos);
+            }
+        }
+    }
+
+    // Counts a failed operation; neither its latency nor its phases are recorded
+    public static void fail(Scope scope) {
+        if (scope != null) {
+            restore(scope);
+            OPERATIONS.get(scope.operation).errors.increment();
+        }
+    }
+
+    private static void restore(Scope scope) {
+        if (scope.outer != null) {
+            CURRENT.set(scope.outer);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    // The operation being timed on this thread, or null; hand it to work forked onto other threads
+    public static Scope current() {
+        return enabled ? CURRENT.get() : null;
+    }
+
+    // Runs work on this thread with its phases charged to scope (e.g. a branch forked onto a pool)
+    public static <T> T callIn(Scope scope, Supplier<T> work) {
+        if (scope == null) {
+            return work.get();
+        }
+        Scope previous = CURRENT.get();
+        CURRENT.set(scope);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    // Start time for a phase, or 0 while disabled
+    public static long phaseStart() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void phaseEnd(Phase phase, long start) {
+        if (start != 0) {
+            recordPhase(phase, System.nanoTime() - start);
+        }
+    }
+
+    // For phases whose time was summed elsewhere, e.g. across the workers of a parallel kernel.
+    // Inside an operation the time is added to its total for the phase
+    public static void recordPhase(Phase phase, long nanos) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.phaseNanos.addAndGet(phase.ordinal(), nanos);
+        } else {
+            PHASES.get(phase).record(nanos);
+        }
+    }
+
+    public static LatencyHistogram latency(Operation operation) {
+        return OPERATIONS.get(operation).latency;
+    }
+
+    public static LatencyHistogram latency(Phase phase) {
+        return PHASES.get(phase);
+    }
+
+    public static long errors(Operation operation) {
+        return OPERATIONS.get(operation).errors.sum();
+    }
+
+    // Mean bytes allocated on the calling thread per completed operation, or -1 if unsupported
+    public static long allocatedBytesPerOperation(Operation operation) {
+        if (ALLOCATION == null) {
+            return -1;
+        }
+        OperationStats stats = OPERATIONS.get(operation);
+        long count = stats.latency.count();
+        return count == 0 ? 0 : stats.allocatedBytes.sum() / count;
+    }
+
+    public static void reset() {
+        for (OperationStats stats : OPERATIONS.values()) {
+            stats.latency.reset();
+            stats.errors.reset();
+            stats.allocatedBytes.reset();
+        }
+        for (LatencyHistogram histogram : PHASES.values()) {
+            histogram.reset();
+        }
+    }
+
+    // Plain-text table of every operation and phase, e.g. for logs or a diagnostics endpoint
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-20s %10s %8s %12s %12s %12s %12s %14s%n",
+                "name", "count", "errors", "mean_us", "p50_us", "p99_us", "max_us", "alloc_bytes/op"));
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram latency = latency(operation);
+            appendRow(out, operation.label, latency, Long.toString(errors(operation)),
+                    Long.toString(allocatedBytesPerOperation(operation)));
+        }
+        for (Phase phase : Phase.values()) {
+            appendRow(out, "phase." + phase.label, latency(phase), "-", "-");
+        }
+        return out.toString();
+    }
+
+    private static void appendRow(StringBuilder out, String name, LatencyHistogram latency, String errors, String allocated) {
+        out.append(String.format("%-20s %10d %8s %12.1f %12.1f %12.1f %12.1f %14s%n", name, latency.count(), errors,
+                latency.meanNanos() / 1000.0, latency.percentileNanos(0.50) / 1000.0,
+                latency.percentileNanos(0.99) / 1000.0, latency.maxNanos() / 1000.0, allocated));
+    }
+
+    // Registers the MXBean with the platform MBean server; calling it again is harmless
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MXBean(), name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + OBJECT_NAME + ".", e);
+        }
+    }
+
+    private static final class MXBean implements KemMetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return KemMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean on) {
+            KemMetrics.setEnabled(on);
+        }
+
+        @Override
+        public Map<String, Long> getCounts() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (Operation operation : Operation.values()) {
+                result.put(operation.label, latency(operation).count());
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getErrors() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (Operation operation : Operation.values()) {
+                result.put(operation.label, errors(operation));
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getAllocatedBytesPerOperation() {
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (Operation operation : Operation.values()) {
+                result.put(operation.label, allocatedBytesPerOperation(operation));
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, Double> getMeanMicros() {
+            return micros(LatencyHistogram::meanNanos);
+        }
+
+        @Override
+        public Map<String, Double> getP50Micros() {
+            return micros(histogram -> histogram.percentileNanos(0.50));
+        }
+
+        @Override
+        public Map<String, Double> getP99Micros() {
+            return micros(histogram -> histogram.percentileNanos(0.99));
+        }
+
+        @Override
+        public Map<String, Double> getMaxMicros() {
+            return micros(LatencyHistogram::maxNanos);
+        }
+
+        @Override
+        public String dump() {
+            return KemMetrics.dump();
+        }
+
+        @Override
+        public void reset() {
+            KemMetrics.reset();
+        }
+
+        private static Map<String, Double> micros(ToDoubleFunction<LatencyHistogram> nanos) {
+            Map<String, Double> result = new LinkedHashMap<>();
+            for (Operation operation : Operation.values()) {
+                result.put(operation.label, nanos.applyAsDouble(latency(operation)) / 1000.0);
+            }
+            for (Phase phase : Phase.values()) {
+                result.put("phase." + phase.label, nanos.applyAsDouble(latency(phase)) / 1000.0);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package frodokem;
+
+import java.util.Map;
+
+// JMX view of KemMetrics, registered as frodokem:type=KemMetrics. Maps are keyed by operation
+// name (e.g. "encapsulate") or phase name (e.g. "phase.hashing"); times are in microseconds
+public interface KemMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    Map<String, Long> getCounts();
+
+    Map<String, Long> getErrors();
+
+    Map<String, Long> getAllocatedBytesPerOperation();
+
+    Map<String, Double> getMeanMicros();
+
+    Map<String, Double> getP50Micros();
+
+    Map<String, Double> getP99Micros();
+
+    Map<String, Double> getMaxMicros();
+
+    String dump();
+
+    void reset();
+}
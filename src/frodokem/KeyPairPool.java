@@ -0,0 +1,166 @@
+package frodokem;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pregenerated ephemeral key pairs for handshakes that cannot wait for keyGen.
+// Pairs sit in a lock-free queue and each one is handed out exactly once. Once take() leaves fewer
+// than lowWater pairs, a single background task generates pairs until highWater are queued again.
+// An empty pool is a miss: the caller generates a pair synchronously, as FrodoKEM.keyGen would
+public class KeyPairPool implements AutoCloseable {
+    private final FrodoParams params;
+    private final int lowWater;
+    private final int highWater;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor; // Null when the caller supplied the executor
+
+    private final ConcurrentLinkedQueue<FrodoKEM.KeyPair> pairs = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the queue, so the count is kept separately
+    private final AtomicInteger available = new AtomicInteger();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private volatile boolean open = true;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong refillFailures = new AtomicLong();
+
+    // Refills on a private daemon thread that is stopped by close()
+    public KeyPairPool(FrodoParams params, int lowWater, int highWater) {
+        this(params, lowWater, highWater, null);
+    }
+
+    // Refills on the given executor, which the pool does not shut down
+    public KeyPairPool(FrodoParams params, int lowWater, int highWater, Executor executor) {
+        if (lowWater < 0 || highWater <= 0 || lowWater > highWater) {
+            throw new IllegalArgumentException("Water marks must satisfy 0 <= lowWater <= highWater and highWater > 0.");
+        }
+        this.params = params;
+        this.lowWater = lowWater;
+        this.highWater = highWater;
+        if (executor == null) {
+            this.ownedExecutor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "frodokem-keypair-refill");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.executor = ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+            this.executor = executor;
+        }
+        scheduleRefill();
+    }
+
+    // Returns a pooled pair if one is ready, otherwise generates one on the calling thread
+    public FrodoKEM.KeyPair take() {
+        if (!open) {
+            throw new IllegalStateException("Key pair pool is closed.");
+        }
+        FrodoKEM.KeyPair keyPair = pairs.poll();
+        if (keyPair != null) {
+            hits.incrementAndGet();
+            if (available.decrementAndGet() < lowWater) {
+                scheduleRefill();
+            }
+            return keyPair;
+        }
+        misses.incrementAndGet();
+        scheduleRefill();
+        return FrodoKEM.keyGen(params);
+    }
+
+    public FrodoParams params() {
+        return params;
+    }
+
+    // Pairs ready to be taken
+    public int size() {
+        return available.get();
+    }
+
+    public long hitCount() {
+        return hits.get();
+    }
+
+    public long missCount() {
+        return misses.get();
+    }
+
+    // Fraction of take() calls served from the pool; 0 before the first call
+    public double hitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    // Pairs generated in the background, including those still queued
+    public long generatedCount() {
+        return generated.get();
+    }
+
+    public long refillFailureCount() {
+        return refillFailures.get();
+    }
+
+    // Stops refilling and zeroizes the private keys of every pair nobody took
+    @Override
+    public void close() {
+        open = false;
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
+        drain();
+    }
+
+    // At most one refill task runs at a time; losing the race means one is already on its way
+    private void scheduleRefill() {
+        if (!open || available.get() >= highWater || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::refill);
+        } catch (RejectedExecutionException e) {
+            refilling.set(false);
+            refillFailures.incrementAndGet();
+        }
+    }
+
+    private void refill() {
+        try {
+            while (open && available.get() < highWater) {
+                FrodoKEM.KeyPair keyPair = FrodoKEM.keyGen(params);
+                generated.incrementAndGet();
+                pairs.offer(keyPair);
+                available.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            refillFailures.incrementAndGet();
+            return;
+        } finally {
+            refilling.set(false);
+        }
+        // A take() that dropped below the low-water mark while this task was finishing saw
+        // refilling still set, so check again rather than miss its request
+        if (available.get() < lowWater) {
+            scheduleRefill();
+        }
+        if (!open) {
+            drain(); // Pairs added after close() drained the queue
+        }
+    }
+
+    private void drain() {
+        FrodoKEM.KeyPair keyPair;
+        while ((keyPair = pairs.poll()) != null) {
+            available.decrementAndGet();
+            keyPair.privateKey.zeroize();
+        }
+    }
+}
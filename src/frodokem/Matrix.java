@@ -1,16 +1,28 @@
 package frodokem;
 
 import java.security.SecureRandom;
+import java.util.concurrent.ForkJoinPool;
 
 public class Matrix {
-    private final int[][] data;
+    // Single contiguous row-major buffer: element (i, j) lives at data[i * cols + j]
+    final int[] data;
     public final int rows;
     public final int cols;
 
     public Matrix(int rows, int cols) {
         this.rows = rows;
         this.cols = cols;
-        this.data = new int[rows][cols];
+        this.data = new int[rows * cols];
+    }
+
+    // Wraps an existing row-major buffer without copying (used by the kernels)
+    Matrix(int rows, int cols, int[] data) {
+        if (data.length != rows * cols) {
+            throw new IllegalArgumentException("Buffer length does not match matrix dimensions.");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
     }
 
     public Matrix(int[][] data) {
@@ -25,18 +37,79 @@ public class Matrix {
         }
         this.rows = data.length;
         this.cols = cols;
-        this.data = new int[this.rows][this.cols];
+        this.data = new int[this.rows * this.cols];
         for (int i = 0; i < this.rows; i++) {
-            System.arraycopy(data[i], 0, this.data[i], 0, this.cols);
+            System.arraycopy(data[i], 0, this.data, i * this.cols, this.cols);
         }
     }
 
+    public static final long DEFAULT_PARALLEL_THRESHOLD = MatrixKernels.DEFAULT_PARALLEL_THRESHOLD;
+
+    // Runs matrix operations on the given pool, splitting row blocks across its workers once an
+    // operation exceeds threshold multiply-adds (or elements); a null pool forces sequential mode
+    public static void setParallelism(ForkJoinPool pool, long threshold) {
+        MatrixKernels.configure(pool, threshold);
+    }
+
+    public static ForkJoinPool getExecutionPool() {
+        return MatrixKernels.pool();
+    }
+
+    // True when the JVM was started with --add-modules jdk.incubator.vector and the
+    // vector backend is on the classpath
+    public static boolean isVectorApiAvailable() {
+        return MatrixKernels.vectorAvailable();
+    }
+
+    // Switches the inner loops between the Vector API and plain scalar code; both give
+    // bit-identical results. Vectorization is on by default whenever it is available
+    public static void setVectorized(boolean enabled) {
+        MatrixKernels.useVector(enabled);
+    }
+
+    public static boolean isVectorized() {
+        return MatrixKernels.simd() != null;
+    }
+
+    // Which kernel implementation is active, e.g. "IntVector x 8" or "scalar"
+    public static String kernelBackend() {
+        SimdKernels vector = MatrixKernels.simd();
+        return vector != null ? vector.description() : "scalar";
+    }
+
+    // Kernels behind multiply, multiplyAddMod and subtractProductMod; all give bit-identical results
+    public enum MultiplyStrategy {
+        AUTO, // STRASSEN when every dimension is at least three times the cutoff, BLOCKED otherwise
+        BLOCKED, // Cache-blocked i-k-j loops
+        STRASSEN // Strassen-Winograd recursion down to the cutoff, then the i-k-j loops
+    }
+
+    public static final int DEFAULT_STRASSEN_CUTOFF = MatrixKernels.DEFAULT_STRASSEN_CUTOFF;
+
+    // Selects the multiply kernel; strassenCutoff is the smallest block size the recursion splits
+    public static void setMultiplyStrategy(MultiplyStrategy strategy, int strassenCutoff) {
+        MatrixKernels.configureMultiply(strategy, strassenCutoff);
+    }
+
+    public static MultiplyStrategy getMultiplyStrategy() {
+        return MatrixKernels.multiplyStrategy();
+    }
+
+    public static int getStrassenCutoff() {
+        return MatrixKernels.strassenCutoff();
+    }
+
+    // The kernel this * other runs on under the current strategy (never AUTO)
+    public MultiplyStrategy multiplyStrategy(Matrix other) {
+        return MatrixKernels.selectMultiply(this.rows, this.cols, other.cols);
+    }
+
     public int get(int row, int col) {
-        return data[row][col];
+        return data[row * cols + col];
     }
 
     public void set(int row, int col, int value) {
-        data[row][col] = value;
+        data[row * cols + col] = value;
     }
 
     public Matrix mod(int modulus) {
@@ -44,11 +117,7 @@ public class Matrix {
             throw new IllegalArgumentException("Modulus must be a positive integer.");
         }
         Matrix result = new Matrix(this.rows, this.cols);
-        for (int i = 0; i < this.rows; i++) {
-            for (int j = 0; j < this.cols; j++) {
-                result.set(i, j, (this.get(i, j) % modulus + modulus) % modulus);
-            }
-        }
+        MatrixKernels.mod(this.data, result.data, this.rows, this.cols, modulus);
         return result;
     }
 
@@ -57,11 +126,7 @@ public class Matrix {
             throw new IllegalArgumentException("Matrices must have the same dimensions to be added.");
         }
         Matrix result = new Matrix(this.rows, this.cols);
-        for (int i = 0; i < this.rows; i++) {
-            for (int j = 0; j < this.cols; j++) {
-                result.set(i, j, this.get(i, j) + other.get(i, j));
-            }
-        }
+        MatrixKernels.add(this.data, other.data, result.data, this.rows, this.cols);
         return result;
     }
 
@@ -70,11 +135,7 @@ public class Matrix {
             throw new IllegalArgumentException("Matrices must have the same dimensions to be subtracted.");
         }
         Matrix result = new Matrix(this.rows, this.cols);
-        for (int i = 0; i < this.rows; i++) {
-            for (int j = 0; j < this.cols; j++) {
-                result.set(i, j, this.get(i, j) - other.get(i, j));
-            }
-        }
+        MatrixKernels.subtract(this.data, other.data, result.data, this.rows, this.cols);
         return result;
     }
 
@@ -83,34 +144,141 @@ public class Matrix {
             throw new IllegalArgumentException("The number of columns in the first matrix must equal the number of rows in the second matrix.");
         }
         Matrix result = new Matrix(this.rows, other.cols);
-        for (int i = 0; i < result.rows; i++) {
-            for (int j = 0; j < result.cols; j++) {
-                int sum = 0;
-                for (int k = 0; k < this.cols; k++) {
-                    sum += this.get(i, k) * other.get(k, j);
-                }
-                result.set(i, j, sum);
+        // Cache-blocked i-k-j kernel; int arithmetic wraps exactly like the naive loop did
+        MatrixKernels.multiply(this.data, other.data, result.data, this.rows, this.cols, other.cols);
+        return result;
+    }
+
+    // Fused (this * other + addend) mod modulus: one output allocation, no intermediates
+    public Matrix multiplyAddMod(Matrix other, Matrix addend, int modulus) {
+        if (this.cols != other.rows) {
+            throw new IllegalArgumentException("The number of columns in the first matrix must equal the number of rows in the second matrix.");
+        }
+        if (addend.rows != this.rows || addend.cols != other.cols) {
+            throw new IllegalArgumentException("Matrices must have the same dimensions to be added.");
+        }
+        if (modulus <= 0) {
+            throw new IllegalArgumentException("Modulus must be a positive integer.");
+        }
+        Matrix result = new Matrix(this.rows, other.cols);
+        MatrixKernels.multiplyAddMod(this.data, other.data, addend.data, result.data,
+                this.rows, this.cols, other.cols, modulus);
+        return result;
+    }
+
+    // Fused (this - a * b) mod modulus: one output allocation, no intermediates
+    public Matrix subtractProductMod(Matrix a, Matrix b, int modulus) {
+        if (a.cols != b.rows) {
+            throw new IllegalArgumentException("The number of columns in the first matrix must equal the number of rows in the second matrix.");
+        }
+        if (this.rows != a.rows || this.cols != b.cols) {
+            throw new IllegalArgumentException("Matrices must have the same dimensions to be subtracted.");
+        }
+        if (modulus <= 0) {
+            throw new IllegalArgumentException("Modulus must be a positive integer.");
+        }
+        Matrix result = new Matrix(this.rows, this.cols);
+        MatrixKernels.subtractProductMod(this.data, a.data, b.data, result.data,
+                a.rows, a.cols, b.cols, modulus);
+        return result;
+    }
+
+    // Fused (this - s^T * other) mod modulus, reading s by columns instead of calling transpose()
+    public Matrix subtractTransposedProductMod(Matrix s, Matrix other, int modulus) {
+        if (s.rows != other.rows) {
+            throw new IllegalArgumentException("The number of rows in s must equal the number of rows in the second matrix.");
+        }
+        if (this.rows != s.cols || this.cols != other.cols) {
+            throw new IllegalArgumentException("Matrices must have the same dimensions to be subtracted.");
+        }
+        if (modulus <= 0) {
+            throw new IllegalArgumentException("Modulus must be a positive integer.");
+        }
+        Matrix result = new Matrix(this.rows, this.cols);
+        MatrixKernels.subtractTransposedProductMod(this.data, s.data, other.data, result.data,
+                this.rows, s.rows, other.cols, modulus);
+        return result;
+    }
+
+    // Places matrices with equal row counts side by side: [m_1 | m_2 | ...]
+    public static Matrix concatColumns(Matrix... matrices) {
+        int rows = matrices[0].rows;
+        int cols = 0;
+        for (Matrix m : matrices) {
+            if (m.rows != rows) {
+                throw new IllegalArgumentException("All matrices must have the same number of rows.");
+            }
+            cols += m.cols;
+        }
+        Matrix result = new Matrix(rows, cols);
+        int offset = 0;
+        for (Matrix m : matrices) {
+            for (int i = 0; i < rows; i++) {
+                System.arraycopy(m.data, i * m.cols, result.data, i * cols + offset, m.cols);
             }
+            offset += m.cols;
         }
         return result;
     }
 
-    public Matrix transpose() {
-        Matrix result = new Matrix(this.cols, this.rows);
-        for (int i = 0; i < this.rows; i++) {
-            for (int j = 0; j < this.cols; j++) {
-                result.set(j, i, this.get(i, j));
+    // Stacks matrices with equal column counts on top of each other
+    public static Matrix concatRows(Matrix... matrices) {
+        int cols = matrices[0].cols;
+        int rows = 0;
+        for (Matrix m : matrices) {
+            if (m.cols != cols) {
+                throw new IllegalArgumentException("All matrices must have the same number of columns.");
             }
+            rows += m.rows;
+        }
+        Matrix result = new Matrix(rows, cols);
+        int offset = 0;
+        for (Matrix m : matrices) {
+            System.arraycopy(m.data, 0, result.data, offset, m.data.length);
+            offset += m.data.length;
+        }
+        return result;
+    }
+
+    // Copy of columns [from, to)
+    public Matrix sliceColumns(int from, int to) {
+        if (from < 0 || to > cols || from >= to) {
+            throw new IllegalArgumentException("Invalid column range.");
+        }
+        Matrix result = new Matrix(rows, to - from);
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(data, i * cols + from, result.data, i * result.cols, result.cols);
+        }
+        return result;
+    }
+
+    // Copy of rows [from, to)
+    public Matrix sliceRows(int from, int to) {
+        if (from < 0 || to > rows || from >= to) {
+            throw new IllegalArgumentException("Invalid row range.");
         }
+        Matrix result = new Matrix(to - from, cols);
+        System.arraycopy(data, from * cols, result.data, 0, result.data.length);
+        return result;
+    }
+
+    public Matrix transpose() {
+        Matrix result = new Matrix(this.cols, this.rows);
+        MatrixKernels.transpose(this.data, result.data, this.rows, this.cols);
         return result;
     }
 
     // Generate a discrete Gaussian matrix using a SecureRandom instance
     public static Matrix generateDiscreteGaussianMatrix(int rows, int cols, SecureRandom random) {
+        return generateDiscreteGaussianMatrix(rows, cols, Constants.PARAMS.sigma, random);
+    }
+
+    // Generate a discrete Gaussian matrix with the given standard deviation
+    public static Matrix generateDiscreteGaussianMatrix(int rows, int cols, double sigma, SecureRandom random) {
         Matrix matrix = new Matrix(rows, cols);
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
-                matrix.set(i, j, sampleDiscreteGaussian(Constants.SIGMA, random));
+                matrix.set(i, j, sampleDiscreteGaussian(sigma, random));
             }
         }
         return matrix;
@@ -127,6 +295,44 @@ public class Matrix {
         return matrix;
     }
 
+    // Generate a uniform matrix mod modulus with bulk draws: a power-of-two modulus up to 2^16 is
+    // one masked 16-bit word per element, anything else uses rejection sampling on 32-bit words
+    public static Matrix generateRandomMatrix(int rows, int cols, int modulus, RandomSource random) {
+        if (modulus <= 0) {
+            throw new IllegalArgumentException("Modulus must be a positive integer.");
+        }
+        Matrix matrix = new Matrix(rows, cols);
+        int[] out = matrix.data;
+        if ((modulus & (modulus - 1)) == 0 && modulus <= 1 << 16) {
+            short[] words = new short[out.length];
+            random.fill(words);
+            int mask = modulus - 1;
+            for (int i = 0; i < out.length; i++) {
+                out[i] = words[i] & mask;
+            }
+            return matrix;
+        }
+        // Largest multiple of modulus below 2^32, so accepted values are unbiased
+        long limit = (1L << 32) - ((1L << 32) % modulus);
+        byte[] bytes = new byte[4 * Math.min(out.length, 1024)];
+        int available = 0;
+        int position = 0;
+        for (int i = 0; i < out.length; ) {
+            if (position == available) {
+                random.fill(bytes, 0, bytes.length);
+                available = bytes.length;
+                position = 0;
+            }
+            long word = (bytes[position] & 0xFFL) | (bytes[position + 1] & 0xFFL) << 8
+                    | (bytes[position + 2] & 0xFFL) << 16 | (bytes[position + 3] & 0xFFL) << 24;
+            position += 4;
+            if (word < limit) {
+                out[i++] = (int) (word % modulus);
+            }
+        }
+        return matrix;
+    }
+
     private static int sampleDiscreteGaussian(double sigma, SecureRandom random) {
         double u1 = random.nextDouble();
         double u2 = random.nextDouble();
@@ -0,0 +1,266 @@
+package frodokem;
+
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.bouncycastle.crypto.digests.SHAKEDigest;
+
+// The public n x n matrix A, expanded row by row from a 16-byte seed as in the FrodoKEM
+// specification. A is never stored: the products below pull rows straight from the expander
+public final class MatrixA {
+    public static final int SEED_BYTES = 16;
+
+    // How rows of A are derived from seedA
+    public enum Expansion {
+        SHAKE128, // Row i = SHAKE128(le16(i) || seedA)
+        AES128 // A[i][j..j+7] = AES128_seedA(le16(i) || le16(j) || 0^12)
+    }
+
+    public final FrodoParams params;
+    private final byte[] seedA;
+
+    public MatrixA(FrodoParams params, byte[] seedA) {
+        if (seedA == null || seedA.length != SEED_BYTES) {
+            throw new IllegalArgumentException("seedA must be " + SEED_BYTES + " bytes.");
+        }
+        this.params = params;
+        this.seedA = seedA.clone();
+    }
+
+    public byte[] seed() {
+        return seedA.clone();
+    }
+
+    // Writes row i of A (n values in [0, q)) into out
+    public void row(int i, int[] out) {
+        newExpander().expand(i, out);
+    }
+
+    // Materializes the full matrix; only meant for tests and transcripts
+    public Matrix toMatrix() {
+        int n = params.n;
+        Matrix result = new Matrix(n, n);
+        MatrixKernels.forRows(n, (long) n * n, (start, end) -> {
+            RowExpander expander = newExpander();
+            int[] row = new int[n];
+            for (int i = start; i < end; i++) {
+                expander.expand(i, row);
+                System.arraycopy(row, 0, result.data, i * n, n);
+            }
+        });
+        return result;
+    }
+
+    // (A * s + e) mod q for an n x k noise operand; each worker expands its own block of rows
+    public ModQMatrix multiplyAddMod(NoiseMatrix s, NoiseMatrix e) {
+        int n = params.n;
+        if (s.rows != n) {
+            throw new IllegalArgumentException("The number of rows in the second matrix must equal n.");
+        }
+        if (e.rows != n || e.cols != s.cols) {
+            throw new IllegalArgumentException("Matrices must have the same dimensions to be added.");
+        }
+        int m = s.cols;
+        int mask = params.q - 1;
+        ModQMatrix result = new ModQMatrix(n, m);
+        short[] c = result.data;
+        KernelTiming timing = KemMetrics.isEnabled() ? new KernelTiming() : null;
+        // S is only m columns wide, so the SIMD path takes dot products of rows of A with rows
+        // of S^T; the transposed copy of the secret is wiped afterwards
+        SimdKernels vector = MatrixKernels.simd();
+        byte[] sT = vector != null ? NarrowKernels.transpose(s.data, n, m) : null;
+        try {
+            MatrixKernels.forRows(n, (long) n * n * m, (start, end) -> {
+                long blockStart = timing != null ? System.nanoTime() : 0;
+                RowExpander expander = timing != null ? timing.wrap(newExpander()) : newExpander();
+                int[] row = new int[n];
+                int[] acc = new int[m];
+                for (int i = start; i < end; i++) {
+                    expander.expand(i, row);
+                    int cRow = i * m;
+                    for (int j = 0; j < m; j++) {
+                        acc[j] = e.data[cRow + j];
+                    }
+                    if (sT != null) {
+                        for (int j = 0; j < m; j++) {
+                            acc[j] += vector.dot(row, 0, sT, j * n, n);
+                        }
+                    } else {
+                        for (int p = 0; p < n; p++) {
+                            int aip = row[p];
+                            int sRow = p * m;
+                            for (int j = 0; j < m; j++) {
+                                acc[j] += aip * s.data[sRow + j];
+                            }
+                        }
+                    }
+                    for (int j = 0; j < m; j++) {
+                        c[cRow + j] = (short) (acc[j] & mask);
+                    }
+                }
+                if (timing != null) {
+                    timing.total.add(System.nanoTime() - blockStart);
+                }
+            });
+        } finally {
+            if (sT != null) {
+                Arrays.fill(sT, (byte) 0);
+            }
+        }
+        if (timing != null) {
+            timing.commit();
+        }
+        return result;
+    }
+
+    // (r * A + e) mod q for a k x n noise operand. Every row of A touches the whole output,
+    // so row blocks are expanded in parallel into partial sums that are combined, then wiped
+    public ModQMatrix leftMultiplyAddMod(NoiseMatrix r, NoiseMatrix e) {
+        int n = params.n;
+        if (r.cols != n) {
+            throw new IllegalArgumentException("The number of columns in the first matrix must equal n.");
+        }
+        if (e.rows != r.rows || e.cols != n) {
+            throw new IllegalArgumentException("Matrices must have the same dimensions to be added.");
+        }
+        int k = r.rows;
+        long work = (long) k * n * n;
+        ForkJoinPool pool = MatrixKernels.pool();
+        int blocks = pool == null || work < MatrixKernels.parallelThreshold()
+                ? 1 : Math.max(1, Math.min(n, pool.getParallelism()));
+        int[][] partials = new int[blocks][];
+        SimdKernels vector = MatrixKernels.simd();
+        KernelTiming timing = KemMetrics.isEnabled() ? new KernelTiming() : null;
+        MatrixKernels.forRows(blocks, work, (blockStart, blockEnd) -> {
+            long started = timing != null ? System.nanoTime() : 0;
+            RowExpander expander = timing != null ? timing.wrap(newExpander()) : newExpander();
+            int[] row = new int[n];
+            for (int b = blockStart; b < blockEnd; b++) {
+                int[] acc = new int[k * n];
+                for (int i = b * n / blocks, iEnd = (b + 1) * n / blocks; i < iEnd; i++) {
+                    expander.expand(i, row);
+                    for (int l = 0; l < k; l++) {
+                        MatrixKernels.axpy(vector, r.data[l * n + i], row, 0, acc, l * n, n);
+                    }
+                }
+                partials[b] = acc;
+            }
+            if (timing != null) {
+                timing.total.add(System.nanoTime() - started);
+            }
+        });
+        if (timing != null) {
+            timing.commit();
+        }
+        long reduction = KemMetrics.phaseStart();
+        int mask = params.q - 1;
+        ModQMatrix result = new ModQMatrix(k, n);
+        short[] c = result.data;
+        for (int i = 0; i < c.length; i++) {
+            int sum = e.data[i];
+            for (int[] partial : partials) {
+                sum += partial[i];
+            }
+            c[i] = (short) (sum & mask);
+        }
+        // The partials are r * A restricted to a block of rows, and r is secret
+        for (int[] partial : partials) {
+            Arrays.fill(partial, 0);
+        }
+        KemMetrics.phaseEnd(KemMetrics.Phase.REDUCTION, reduction);
+        return result;
+    }
+
+    // Splits a streaming kernel's time, summed over its workers, into A expansion and multiply
+    private static final class KernelTiming {
+        final LongAdder expansion = new LongAdder();
+        final LongAdder total = new LongAdder();
+
+        RowExpander wrap(RowExpander expander) {
+            return (row, out) -> {
+                long start = System.nanoTime();
+                expander.expand(row, out);
+                expansion.add(System.nanoTime() - start);
+            };
+        }
+
+        void commit() {
+            long expanded = expansion.sum();
+            KemMetrics.recordPhase(KemMetrics.Phase.A_EXPANSION, expanded);
+            KemMetrics.recordPhase(KemMetrics.Phase.MULTIPLY, total.sum() - expanded);
+        }
+    }
+
+    // Expanders keep per-thread digest/cipher state and are not shared between workers
+    interface RowExpander {
+        void expand(int row, int[] out);
+    }
+
+    RowExpander newExpander() {
+        return params.expansion == Expansion.AES128 ? new AesExpander() : new ShakeExpander();
+    }
+
+    private final class ShakeExpander implements RowExpander {
+        private final SHAKEDigest shake = new SHAKEDigest(128);
+        private final byte[] input = new byte[2 + SEED_BYTES];
+        private final byte[] output = new byte[2 * params.n];
+
+        ShakeExpander() {
+            System.arraycopy(seedA, 0, input, 2, SEED_BYTES);
+        }
+
+        @Override
+        public void expand(int row, int[] out) {
+            input[0] = (byte) row;
+            input[1] = (byte) (row >>> 8);
+            shake.update(input, 0, input.length);
+            shake.doFinal(output, 0, output.length);
+            decodeRow(output, out, params.q);
+        }
+    }
+
+    private final class AesExpander implements RowExpander {
+        private final Cipher aes;
+        private final byte[] input = new byte[2 * params.n];
+        private final byte[] output = new byte[2 * params.n];
+
+        AesExpander() {
+            try {
+                aes = Cipher.getInstance("AES/ECB/NoPadding");
+                aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(seedA, "AES"));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("AES-128 is not available for expanding A.", e);
+            }
+        }
+
+        @Override
+        public void expand(int row, int[] out) {
+            // One 16-byte block per 8 columns; ECB lets the whole row go through a single call
+            for (int j = 0, offset = 0; j < params.n; j += 8, offset += 16) {
+                input[offset] = (byte) row;
+                input[offset + 1] = (byte) (row >>> 8);
+                input[offset + 2] = (byte) j;
+                input[offset + 3] = (byte) (j >>> 8);
+            }
+            try {
+                aes.doFinal(input, 0, input.length, output, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("AES-128 expansion of A failed.", e);
+            }
+            decodeRow(output, out, params.q);
+        }
+    }
+
+    // Little-endian 16-bit words reduced mod q
+    private static void decodeRow(byte[] bytes, int[] out, int q) {
+        int mask = q - 1;
+        for (int j = 0; j < out.length; j++) {
+            out[j] = ((bytes[2 * j] & 0xFF) | ((bytes[2 * j + 1] & 0xFF) << 8)) & mask;
+        }
+    }
+}
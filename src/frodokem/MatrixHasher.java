@@ -0,0 +1,132 @@
+package frodokem;
+
+import java.util.Arrays;
+
+import org.bouncycastle.crypto.digests.SHAKEDigest;
+
+// Streaming SHAKE-256 hash of matrix coefficients. Coefficients are encoded into a fixed buffer
+// that is absorbed in large chunks, so hashing allocates nothing per element, and rows can be
+// fed as soon as they are computed. A hasher is reusable after finish() but not thread-safe
+public final class MatrixHasher {
+    public static final int OUTPUT_BYTES = 32; // 256 bits
+
+    private static final int BUFFER_BYTES = 4096;
+    // Longest decimal encoding of an int, "-2147483648"
+    private static final int MAX_DECIMAL_DIGITS = 11;
+
+    public enum Encoding {
+        BINARY, // Each coefficient as a little-endian 16-bit word (values are reduced mod Q <= 2^16)
+        DECIMAL // Legacy: the decimal digits of each coefficient concatenated, as in the original hashMatrix
+    }
+
+    private final Encoding encoding;
+    private final SHAKEDigest shake256 = new SHAKEDigest(256);
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+    private int position;
+
+    public MatrixHasher(Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    public Encoding encoding() {
+        return encoding;
+    }
+
+    public void absorb(Matrix matrix) {
+        absorb(matrix.data, 0, matrix.data.length);
+    }
+
+    public void absorb(ModQMatrix matrix) {
+        absorb(matrix.data, 0, matrix.data.length);
+    }
+
+    // Absorbs unsigned 16-bit values[offset, offset + length); hashes the same as the int values
+    public void absorb(short[] values, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int value = values[i] & 0xFFFF;
+            if (encoding == Encoding.BINARY) {
+                if (position + 2 > BUFFER_BYTES) {
+                    flush();
+                }
+                buffer[position] = (byte) value;
+                buffer[position + 1] = (byte) (value >>> 8);
+                position += 2;
+            } else {
+                if (position + MAX_DECIMAL_DIGITS > BUFFER_BYTES) {
+                    flush();
+                }
+                putDecimal(value);
+            }
+        }
+    }
+
+    // Absorbs values[offset, offset + length), e.g. one row block of a product
+    public void absorb(int[] values, int offset, int length) {
+        if (encoding == Encoding.BINARY) {
+            for (int i = offset, end = offset + length; i < end; i++) {
+                if (position + 2 > BUFFER_BYTES) {
+                    flush();
+                }
+                int value = values[i];
+                buffer[position] = (byte) value;
+                buffer[position + 1] = (byte) (value >>> 8);
+                position += 2;
+            }
+        } else {
+            for (int i = offset, end = offset + length; i < end; i++) {
+                if (position + MAX_DECIMAL_DIGITS > BUFFER_BYTES) {
+                    flush();
+                }
+                putDecimal(values[i]);
+            }
+        }
+    }
+
+    // Writes the digest and resets the hasher for the next matrix
+    public void finish(byte[] out, int offset) {
+        flush();
+        shake256.doFinal(out, offset, OUTPUT_BYTES);
+    }
+
+    public byte[] finish() {
+        byte[] output = new byte[OUTPUT_BYTES];
+        finish(output, 0);
+        return output;
+    }
+
+    // Discards anything absorbed since the last finish(), e.g. after a failed decapsulation
+    public void reset() {
+        Arrays.fill(buffer, 0, position, (byte) 0);
+        position = 0;
+        shake256.reset();
+    }
+
+    private void flush() {
+        if (position > 0) {
+            shake256.update(buffer, 0, position);
+            // The buffer holds encoded shared-secret coefficients, so it is not left behind
+            Arrays.fill(buffer, 0, position, (byte) 0);
+            position = 0;
+        }
+    }
+
+    // Same bytes as Integer.toString(value).getBytes(), without the String
+    private void putDecimal(int value) {
+        long v = value;
+        if (v < 0) {
+            buffer[position++] = '-';
+            v = -v;
+        }
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + (int) (v % 10));
+            v /= 10;
+        } while (v != 0);
+        // Digits were produced least significant first
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package frodokem;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+// Low-level kernels working directly on flat row-major int arrays
+final class MatrixKernels {
+    // Tile sizes chosen so that a BLOCK_K x BLOCK_J tile of the right operand
+    // (64 x 256 ints = 64 KB) stays resident in L2 while it is reused for every row
+    static final int BLOCK_I = 32;
+    static final int BLOCK_K = 64;
+    static final int BLOCK_J = 256;
+
+    // Operations with less work than this (in multiply-adds or elements) stay on the calling thread
+    static final long DEFAULT_PARALLEL_THRESHOLD = 1L << 18;
+
+    // Strassen-Winograd recursion stops once a dimension would fall below this; the blocked
+    // kernel is faster on smaller blocks
+    static final int DEFAULT_STRASSEN_CUTOFF = 128;
+
+    // One Strassen level at exactly twice the cutoff measured no faster than the blocked kernel
+    // (256 with the default cutoff); from three times the cutoff (384) it wins, so AUTO waits for that
+    static final int AUTO_STRASSEN_FACTOR = 3;
+
+    private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+    private static volatile Matrix.MultiplyStrategy strategy = Matrix.MultiplyStrategy.AUTO;
+    private static volatile int strassenCutoff = DEFAULT_STRASSEN_CUTOFF;
+    private static volatile long parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    // Vector API backend, or null when jdk.incubator.vector is missing (or disabled with
+    // -Dfrodokem.vector=false); the inner loops below use it whenever vectorized is set
+    private static final SimdKernels VECTOR = loadVectorKernels();
+    private static volatile SimdKernels simd = VECTOR;
+
+    private MatrixKernels() {
+    }
+
+    // Work on a contiguous range of rows [rowStart, rowEnd)
+    @FunctionalInterface
+    interface RowRange {
+        void apply(int rowStart, int rowEnd);
+    }
+
+    static ForkJoinPool pool() {
+        return pool;
+    }
+
+    // A null pool switches every kernel to sequential execution
+    static void configure(ForkJoinPool executionPool, long threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Parallel threshold must not be negative.");
+        }
+        pool = executionPool;
+        parallelThreshold = threshold;
+    }
+
+    static long parallelThreshold() {
+        return parallelThreshold;
+    }
+
+    private static SimdKernels loadVectorKernels() {
+        if (!Boolean.parseBoolean(System.getProperty("frodokem.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            // Loaded reflectively so the rest of the package compiles and runs without the module
+            return (SimdKernels) Class.forName("frodokem.VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    static boolean vectorAvailable() {
+        return VECTOR != null;
+    }
+
+    static void useVector(boolean enabled) {
+        if (enabled && VECTOR == null) {
+            throw new IllegalStateException("The Vector API backend is not available; run with --add-modules jdk.incubator.vector.");
+        }
+        simd = enabled ? VECTOR : null;
+    }
+
+    // The active vector backend, or null for the scalar loops
+    static SimdKernels simd() {
+        return simd;
+    }
+
+    static void configureMultiply(Matrix.MultiplyStrategy multiplyStrategy, int cutoff) {
+        if (multiplyStrategy == null) {
+            throw new IllegalArgumentException("Multiply strategy must not be null.");
+        }
+        if (cutoff < 1) {
+            throw new IllegalArgumentException("Strassen cutoff must be positive.");
+        }
+        strategy = multiplyStrategy;
+        strassenCutoff = cutoff;
+    }
+
+    static Matrix.MultiplyStrategy multiplyStrategy() {
+        return strategy;
+    }
+
+    static int strassenCutoff() {
+        return strassenCutoff;
+    }
+
+    // The kernel an n x k by k x m product runs on: AUTO recurses only when every dimension is
+    // at least AUTO_STRASSEN_FACTOR times the cutoff, which rules out the n x 8 FrodoKEM shapes
+    static Matrix.MultiplyStrategy selectMultiply(int n, int k, int m) {
+        Matrix.MultiplyStrategy selected = strategy;
+        if (selected == Matrix.MultiplyStrategy.AUTO) {
+            long min = Math.min(n, Math.min(k, m));
+            return min >= (long) AUTO_STRASSEN_FACTOR * strassenCutoff
+                    ? Matrix.MultiplyStrategy.STRASSEN : Matrix.MultiplyStrategy.BLOCKED;
+        }
+        return selected;
+    }
+
+    // y[yOff, yOff + length) += alpha * x[xOff, xOff + length)
+    static void axpy(SimdKernels vector, int alpha, int[] x, int xOff, int[] y, int yOff, int length) {
+        if (vector != null) {
+            vector.axpy(alpha, x, xOff, y, yOff, length);
+            return;
+        }
+        for (int j = 0; j < length; j++) {
+            y[yOff + j] += alpha * x[xOff + j];
+        }
+    }
+
+    // Runs op over [0, rows), split into row blocks on the configured pool when work is large enough
+    static void forRows(int rows, long work, RowRange op) {
+        ForkJoinPool executionPool = pool;
+        if (executionPool == null || rows < 2 || work < parallelThreshold || executionPool.getParallelism() < 2) {
+            op.apply(0, rows);
+            return;
+        }
+        // Aim for a few blocks per worker so stealing can balance uneven rows
+        int grain = Math.max(1, rows / (executionPool.getParallelism() * 4));
+        RowTask task = new RowTask(op, 0, rows, grain);
+        Thread current = Thread.currentThread();
+        if (current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == executionPool) {
+            // Already inside the pool (e.g. a concurrent encapsulation branch): fork in place
+            task.invoke();
+        } else {
+            executionPool.invoke(task);
+        }
+    }
+
+    private static final class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient RowRange op;
+        private final int start;
+        private final int end;
+        private final int grain;
+
+        RowTask(RowRange op, int start, int end, int grain) {
+            this.op = op;
+            this.start = start;
+            this.end = end;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= grain) {
+                op.apply(start, end);
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new RowTask(op, start, mid, grain), new RowTask(op, mid, end, grain));
+        }
+    }
+
+    // c[n x m] = a[n x k] * b[k x m], all row-major; c must be zero-filled
+    static void multiply(int[] a, int[] b, int[] c, int n, int k, int m) {
+        if (selectMultiply(n, k, m) == Matrix.MultiplyStrategy.STRASSEN) {
+            StrassenKernels.multiply(a, b, c, n, k, m, strassenCutoff);
+            return;
+        }
+        forRows(n, (long) n * k * m, (start, end) -> multiplyRows(a, b, c, k, m, start, end));
+    }
+
+    // Computes rows [rowStart, rowEnd) of c = a * b using a tiled i-k-j loop order,
+    // so the innermost loop walks both b and c sequentially
+    static void multiplyRows(int[] a, int[] b, int[] c, int k, int m, int rowStart, int rowEnd) {
+        SimdKernels vector = simd;
+        for (int ii = rowStart; ii < rowEnd; ii += BLOCK_I) {
+            int iEnd = Math.min(ii + BLOCK_I, rowEnd);
+            for (int kk = 0; kk < k; kk += BLOCK_K) {
+                int kEnd = Math.min(kk + BLOCK_K, k);
+                for (int jj = 0; jj < m; jj += BLOCK_J) {
+                    int jEnd = Math.min(jj + BLOCK_J, m);
+                    for (int i = ii; i < iEnd; i++) {
+                        int aRow = i * k;
+                        int cRow = i * m;
+                        for (int p = kk; p < kEnd; p++) {
+                            axpy(vector, a[aRow + p], b, p * m + jj, c, cRow + jj, jEnd - jj);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // dst[j x i] = src[i x j]^T, walked in square tiles to keep both sides cache friendly
+    static void transpose(int[] src, int[] dst, int rows, int cols) {
+        forRows(rows, (long) rows * cols, (start, end) -> transposeRows(src, dst, rows, cols, start, end));
+    }
+
+    private static void transposeRows(int[] src, int[] dst, int rows, int cols, int rowStart, int rowEnd) {
+        for (int ii = rowStart; ii < rowEnd; ii += BLOCK_I) {
+            int iEnd = Math.min(ii + BLOCK_I, rowEnd);
+            for (int jj = 0; jj < cols; jj += BLOCK_I) {
+                int jEnd = Math.min(jj + BLOCK_I, cols);
+                for (int i = ii; i < iEnd; i++) {
+                    for (int j = jj; j < jEnd; j++) {
+                        dst[j * rows + i] = src[i * cols + j];
+                    }
+                }
+            }
+        }
+    }
+
+    // out = a + b elementwise
+    static void add(int[] a, int[] b, int[] out, int rows, int cols) {
+        SimdKernels vector = simd;
+        forRows(rows, (long) rows * cols, (start, end) -> {
+            if (vector != null) {
+                vector.add(a, b, out, start * cols, end * cols);
+                return;
+            }
+            for (int i = start * cols, limit = end * cols; i < limit; i++) {
+                out[i] = a[i] + b[i];
+            }
+        });
+    }
+
+    // out = a - b elementwise
+    static void subtract(int[] a, int[] b, int[] out, int rows, int cols) {
+        SimdKernels vector = simd;
+        forRows(rows, (long) rows * cols, (start, end) -> {
+            if (vector != null) {
+                vector.subtract(a, b, out, start * cols, end * cols);
+                return;
+            }
+            for (int i = start * cols, limit = end * cols; i < limit; i++) {
+                out[i] = a[i] - b[i];
+            }
+        });
+    }
+
+    // out = a mod modulus, always in [0, modulus)
+    static void mod(int[] a, int[] out, int rows, int cols, int modulus) {
+        forRows(rows, (long) rows * cols, (start, end) -> reduceRange(a, out, start * cols, end * cols, modulus));
+    }
+
+    // Reduces src[from, to) into dst; a power-of-two modulus is a single mask, which also
+    // maps negative two's-complement values to the right residue
+    static void reduceRange(int[] src, int[] dst, int from, int to, int modulus) {
+        if ((modulus & (modulus - 1)) == 0) {
+            int mask = modulus - 1;
+            SimdKernels vector = simd;
+            if (vector != null) {
+                vector.mask(src, dst, from, to, mask);
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                dst[i] = src[i] & mask;
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                dst[i] = (src[i] % modulus + modulus) % modulus;
+            }
+        }
+    }
+
+    // c[n x m] = (a[n x k] * b[k x m] + e[n x m]) mod modulus, written straight into c
+    static void multiplyAddMod(int[] a, int[] b, int[] e, int[] c, int n, int k, int m, int modulus) {
+        if (selectMultiply(n, k, m) == Matrix.MultiplyStrategy.STRASSEN) {
+            StrassenKernels.multiply(a, b, c, n, k, m, strassenCutoff);
+            SimdKernels vector = simd;
+            forRows(n, (long) n * m, (start, end) -> {
+                if (vector != null) {
+                    vector.add(c, e, c, start * m, end * m);
+                } else {
+                    for (int i = start * m, limit = end * m; i < limit; i++) {
+                        c[i] += e[i];
+                    }
+                }
+                reduceRange(c, c, start * m, end * m, modulus);
+            });
+            return;
+        }
+        forRows(n, (long) n * k * m, (start, end) -> {
+            System.arraycopy(e, start * m, c, start * m, (end - start) * m);
+            multiplyRows(a, b, c, k, m, start, end);
+            reduceRange(c, c, start * m, end * m, modulus);
+        });
+    }
+
+    // c[n x m] = (d[n x m] - a[n x k] * b[k x m]) mod modulus, written straight into c
+    static void subtractProductMod(int[] d, int[] a, int[] b, int[] c, int n, int k, int m, int modulus) {
+        if (selectMultiply(n, k, m) == Matrix.MultiplyStrategy.STRASSEN) {
+            StrassenKernels.multiply(a, b, c, n, k, m, strassenCutoff);
+            SimdKernels vector = simd;
+            forRows(n, (long) n * m, (start, end) -> {
+                if (vector != null) {
+                    vector.subtract(d, c, c, start * m, end * m);
+                } else {
+                    for (int i = start * m, limit = end * m; i < limit; i++) {
+                        c[i] = d[i] - c[i];
+                    }
+                }
+                reduceRange(c, c, start * m, end * m, modulus);
+            });
+            return;
+        }
+        forRows(n, (long) n * k * m, (start, end) -> {
+            for (int i = start * m, limit = end * m; i < limit; i++) {
+                c[i] = -d[i];
+            }
+            // Accumulate a * b - d with the shared kernel, then negate; exact under int wraparound
+            multiplyRows(a, b, c, k, m, start, end);
+            for (int i = start * m, limit = end * m; i < limit; i++) {
+                c[i] = -c[i];
+            }
+            reduceRange(c, c, start * m, end * m, modulus);
+        });
+    }
+
+    // c[n x m] = (d[n x m] - s[k x n]^T * b[k x m]) mod modulus; s is read column-wise in
+    // place so its transpose is never materialized
+    static void subtractTransposedProductMod(int[] d, int[] s, int[] b, int[] c, int n, int k, int m, int modulus) {
+        SimdKernels vector = simd;
+        forRows(n, (long) n * k * m, (start, end) -> {
+            System.arraycopy(d, start * m, c, start * m, (end - start) * m);
+            for (int ii = start; ii < end; ii += BLOCK_I) {
+                int iEnd = Math.min(ii + BLOCK_I, end);
+                for (int kk = 0; kk < k; kk += BLOCK_K) {
+                    int kEnd = Math.min(kk + BLOCK_K, k);
+                    for (int jj = 0; jj < m; jj += BLOCK_J) {
+                        int jEnd = Math.min(jj + BLOCK_J, m);
+                        for (int i = ii; i < iEnd; i++) {
+                            int cRow = i * m;
+                            for (int p = kk; p < kEnd; p++) {
+                                // c -= s * b is c += (-s) * b under int wraparound
+                                axpy(vector, -s[p * n + i], b, p * m + jj, c, cRow + jj, jEnd - jj);
+                            }
+                        }
+                    }
+                }
+            }
+            reduceRange(c, c, start * m, end * m, modulus);
+        });
+    }
+}
@@ -0,0 +1,128 @@
+package frodokem;
+
+// Short-backed matrix for values reduced mod Q (Q <= 2^16): the public key B and the ciphertext
+// parts C1 and C2. Coefficients are stored as unsigned 16-bit values, half the footprint of Matrix
+public final class ModQMatrix {
+    // Row-major: element (i, j) lives at data[i * cols + j]
+    final short[] data;
+    public final int rows;
+    public final int cols;
+
+    public ModQMatrix(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.data = new short[rows * cols];
+    }
+
+    // Copies a Matrix whose values are already in [0, 2^16)
+    public static ModQMatrix from(Matrix matrix) {
+        ModQMatrix result = new ModQMatrix(matrix.rows, matrix.cols);
+        for (int i = 0; i < matrix.data.length; i++) {
+            result.data[i] = checked(matrix.data[i]);
+        }
+        return result;
+    }
+
+    public int get(int row, int col) {
+        return data[row * cols + col] & 0xFFFF;
+    }
+
+    public void set(int row, int col, int value) {
+        data[row * cols + col] = checked(value);
+    }
+
+    public Matrix toMatrix() {
+        Matrix result = new Matrix(rows, cols);
+        for (int i = 0; i < data.length; i++) {
+            result.data[i] = data[i] & 0xFFFF;
+        }
+        return result;
+    }
+
+    // Fused (this - a * s) mod modulus, e.g. the shared-secret matrix C2 - C1 * S
+    public ModQMatrix subtractProductMod(ModQMatrix a, NoiseMatrix s, int modulus) {
+        if (a.cols != s.rows) {
+            throw new IllegalArgumentException("The number of columns in the first matrix must equal the number of rows in the second matrix.");
+        }
+        if (this.rows != a.rows || this.cols != s.cols) {
+            throw new IllegalArgumentException("Matrices must have the same dimensions to be subtracted.");
+        }
+        // reduceRange accepts any modulus, but the result is stored in 16 bits
+        if (modulus <= 0 || modulus > 1 << 16) {
+            throw new IllegalArgumentException("Modulus must be a positive integer no larger than 2^16.");
+        }
+        ModQMatrix result = new ModQMatrix(this.rows, this.cols);
+        NarrowKernels.modQSubtractProductMod(this.data, a.data, s.data, result.data,
+                a.rows, a.cols, s.cols, modulus);
+        return result;
+    }
+
+    // Places matrices with equal row counts side by side: [m_1 | m_2 | ...]
+    public static ModQMatrix concatColumns(ModQMatrix... matrices) {
+        int rows = matrices[0].rows;
+        int cols = 0;
+        for (ModQMatrix m : matrices) {
+            if (m.rows != rows) {
+                throw new IllegalArgumentException("All matrices must have the same number of rows.");
+            }
+            cols += m.cols;
+        }
+        ModQMatrix result = new ModQMatrix(rows, cols);
+        int offset = 0;
+        for (ModQMatrix m : matrices) {
+            for (int i = 0; i < rows; i++) {
+                System.arraycopy(m.data, i * m.cols, result.data, i * cols + offset, m.cols);
+            }
+            offset += m.cols;
+        }
+        return result;
+    }
+
+    // Stacks matrices with equal column counts on top of each other
+    public static ModQMatrix concatRows(ModQMatrix... matrices) {
+        int cols = matrices[0].cols;
+        int rows = 0;
+        for (ModQMatrix m : matrices) {
+            if (m.cols != cols) {
+                throw new IllegalArgumentException("All matrices must have the same number of columns.");
+            }
+            rows += m.rows;
+        }
+        ModQMatrix result = new ModQMatrix(rows, cols);
+        int offset = 0;
+        for (ModQMatrix m : matrices) {
+            System.arraycopy(m.data, 0, result.data, offset, m.data.length);
+            offset += m.data.length;
+        }
+        return result;
+    }
+
+    // Copy of columns [from, to)
+    public ModQMatrix sliceColumns(int from, int to) {
+        if (from < 0 || to > cols || from >= to) {
+            throw new IllegalArgumentException("Invalid column range.");
+        }
+        ModQMatrix result = new ModQMatrix(rows, to - from);
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(data, i * cols + from, result.data, i * result.cols, result.cols);
+        }
+        return result;
+    }
+
+    public ModQMatrix copy() {
+        ModQMatrix result = new ModQMatrix(rows, cols);
+        System.arraycopy(data, 0, result.data, 0, data.length);
+        return result;
+    }
+
+    public void print() {
+        toMatrix().print();
+    }
+
+    private static short checked(int value) {
+        if (value < 0 || value > 0xFFFF) {
+            throw new IllegalArgumentException("Value is not reduced mod Q: " + value);
+        }
+        return (short) value;
+    }
+}
@@ -0,0 +1,139 @@
+package frodokem;
+
+import java.util.Arrays;
+
+// Mixed-width kernels: byte noise and unsigned 16-bit mod-Q operands, accumulated in int.
+// int arithmetic wraps mod 2^32, so masking the sum gives the same residue mod Q as the int kernels.
+// The right operands are only nBar columns wide, too narrow to fill a vector, so the SIMD paths
+// transpose them once and compute each coefficient as a dot product along the shared dimension
+final class NarrowKernels {
+    private NarrowKernels() {
+    }
+
+    // c[n x m] = (a[n x k] * b[k x m] + e[n x m]) mod modulus, a and e noise, b mod-Q
+    static void noiseTimesModQAddMod(byte[] a, short[] b, byte[] e, short[] c, int n, int k, int m, int modulus) {
+        int mask = modulus - 1;
+        SimdKernels vector = MatrixKernels.simd();
+        if (vector != null) {
+            short[] bT = transpose(b, k, m);
+            MatrixKernels.forRows(n, (long) n * k * m, (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    for (int j = 0; j < m; j++) {
+                        int sum = e[i * m + j] + vector.dot(bT, j * k, a, i * k, k);
+                        c[i * m + j] = (short) (sum & mask);
+                    }
+                }
+            });
+            return;
+        }
+        MatrixKernels.forRows(n, (long) n * k * m, (start, end) -> {
+            int[] acc = new int[m];
+            for (int i = start; i < end; i++) {
+                int cRow = i * m;
+                for (int j = 0; j < m; j++) {
+                    acc[j] = e[cRow + j];
+                }
+                int aRow = i * k;
+                for (int p = 0; p < k; p++) {
+                    int aip = a[aRow + p];
+                    int bRow = p * m;
+                    for (int j = 0; j < m; j++) {
+                        acc[j] += aip * (b[bRow + j] & 0xFFFF);
+                    }
+                }
+                for (int j = 0; j < m; j++) {
+                    c[cRow + j] = (short) (acc[j] & mask);
+                }
+            }
+        });
+    }
+
+    // c[n x m] = (d[n x m] - a[n x k] * s[k x m]) mod modulus, a and d mod-Q, s noise
+    static void modQSubtractProductMod(short[] d, short[] a, byte[] s, short[] c, int n, int k, int m, int modulus) {
+        SimdKernels vector = MatrixKernels.simd();
+        // s is usually the secret, so its transposed copy is wiped once the product is done
+        byte[] sT = vector != null ? transpose(s, k, m) : null;
+        try {
+            MatrixKernels.forRows(n, (long) n * k * m, (start, end) -> {
+                int[] row = new int[m];
+                for (int i = start; i < end; i++) {
+                    if (sT != null) {
+                        modQSubtractProductModRowTransposed(vector, d, a, sT, row, i, k, m, modulus);
+                    } else {
+                        modQSubtractProductModRow(d, a, s, row, i, k, m, modulus);
+                    }
+                    for (int j = 0; j < m; j++) {
+                        c[i * m + j] = (short) row[j];
+                    }
+                }
+            });
+        } finally {
+            if (sT != null) {
+                Arrays.fill(sT, (byte) 0);
+            }
+        }
+    }
+
+    // out[0, m) = row i of (d - a * s) mod modulus, for consumers that take one row at a time
+    static void modQSubtractProductModRow(short[] d, short[] a, byte[] s, int[] out, int i, int k, int m, int modulus) {
+        int dRow = i * m;
+        for (int j = 0; j < m; j++) {
+            out[j] = d[dRow + j] & 0xFFFF;
+        }
+        int aRow = i * k;
+        for (int p = 0; p < k; p++) {
+            int aip = a[aRow + p] & 0xFFFF;
+            int sRow = p * m;
+            for (int j = 0; j < m; j++) {
+                out[j] -= aip * s[sRow + j];
+            }
+        }
+        MatrixKernels.reduceRange(out, out, 0, m, modulus);
+    }
+
+    // Same row with s given transposed (m x k): each coefficient is a dot product of two
+    // contiguous rows, on the SIMD kernels when vector is non-null
+    static void modQSubtractProductModRowTransposed(SimdKernels vector, short[] d, short[] a, byte[] sT, int[] out,
+            int i, int k, int m, int modulus) {
+        int dRow = i * m;
+        int aRow = i * k;
+        for (int j = 0; j < m; j++) {
+            out[j] = (d[dRow + j] & 0xFFFF) - dot(vector, a, aRow, sT, j * k, k);
+        }
+        MatrixKernels.reduceRange(out, out, 0, m, modulus);
+    }
+
+    // Sum of (a & 0xFFFF) * b over [0, length)
+    static int dot(SimdKernels vector, short[] a, int aOff, byte[] b, int bOff, int length) {
+        if (vector != null) {
+            return vector.dot(a, aOff, b, bOff, length);
+        }
+        int sum = 0;
+        for (int p = 0; p < length; p++) {
+            sum += (a[aOff + p] & 0xFFFF) * b[bOff + p];
+        }
+        return sum;
+    }
+
+    // The m x k transpose of a row-major k x m noise matrix
+    static byte[] transpose(byte[] s, int k, int m) {
+        byte[] result = new byte[m * k];
+        for (int p = 0; p < k; p++) {
+            for (int j = 0; j < m; j++) {
+                result[j * k + p] = s[p * m + j];
+            }
+        }
+        return result;
+    }
+
+    // The m x k transpose of a row-major k x m mod-Q matrix
+    static short[] transpose(short[] b, int k, int m) {
+        short[] result = new short[m * k];
+        for (int p = 0; p < k; p++) {
+            for (int j = 0; j < m; j++) {
+                result[j * k + p] = b[p * m + j];
+            }
+        }
+        return result;
+    }
+}
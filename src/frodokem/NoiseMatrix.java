@@ -0,0 +1,78 @@
+package frodokem;
+
+import java.util.Arrays;
+
+// Byte-backed matrix for small signed values: the secret S and the error terms E, r, e1 and e2,
+// whose coefficients stay within +/-12 for every parameter set. A quarter of the footprint of
+// Matrix, so far more of an operand fits in cache during a product
+public final class NoiseMatrix {
+    // Row-major: element (i, j) lives at data[i * cols + j]
+    final byte[] data;
+    public final int rows;
+    public final int cols;
+
+    public NoiseMatrix(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.data = new byte[rows * cols];
+    }
+
+    // Copies a Matrix whose values all fit in a signed byte
+    public static NoiseMatrix from(Matrix matrix) {
+        NoiseMatrix result = new NoiseMatrix(matrix.rows, matrix.cols);
+        for (int i = 0; i < matrix.data.length; i++) {
+            result.data[i] = checked(matrix.data[i]);
+        }
+        return result;
+    }
+
+    public int get(int row, int col) {
+        return data[row * cols + col];
+    }
+
+    public void set(int row, int col, int value) {
+        data[row * cols + col] = checked(value);
+    }
+
+    public Matrix toMatrix() {
+        Matrix result = new Matrix(rows, cols);
+        for (int i = 0; i < data.length; i++) {
+            result.data[i] = data[i];
+        }
+        return result;
+    }
+
+    // (this * b + e) mod modulus for a mod-Q right operand, e.g. C2 = r * B + e2
+    public ModQMatrix multiplyAddMod(ModQMatrix b, NoiseMatrix e, int modulus) {
+        if (this.cols != b.rows) {
+            throw new IllegalArgumentException("The number of columns in the first matrix must equal the number of rows in the second matrix.");
+        }
+        if (e.rows != this.rows || e.cols != b.cols) {
+            throw new IllegalArgumentException("Matrices must have the same dimensions to be added.");
+        }
+        // The kernel reduces with a mask and the result is stored in 16 bits
+        if (modulus <= 0 || (modulus & (modulus - 1)) != 0 || modulus > 1 << 16) {
+            throw new IllegalArgumentException("Modulus must be a power of two no larger than 2^16.");
+        }
+        ModQMatrix result = new ModQMatrix(this.rows, b.cols);
+        NarrowKernels.noiseTimesModQAddMod(this.data, b.data, e.data, result.data,
+                this.rows, this.cols, b.cols, modulus);
+        return result;
+    }
+
+    // Overwrites every coefficient with zero, e.g. once a secret has been copied elsewhere
+    public void zeroize() {
+        Arrays.fill(data, (byte) 0);
+    }
+
+    public void print() {
+        toMatrix().print();
+    }
+
+    private static byte checked(int value) {
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Value does not fit a noise matrix: " + value);
+        }
+        return (byte) value;
+    }
+}
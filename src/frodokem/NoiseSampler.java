@@ -0,0 +1,70 @@
+package frodokem;
+
+import java.util.Arrays;
+
+import org.bouncycastle.crypto.digests.SHAKEDigest;
+
+// Inverse-CDF error sampler from the FrodoKEM specification. Each coefficient consumes one
+// 16-bit word of a SHAKE stream: the low bit is the sign and the remaining 15 bits are compared
+// against every entry of the parameter set's CDF table, so the work per sample is fixed and
+// branch-free regardless of the value drawn
+public final class NoiseSampler {
+    // Squeezed from the XOF in chunks of this many bytes
+    private static final int BUFFER_BYTES = 4096;
+
+    // Domain separators for the two places error matrices are drawn
+    public static final byte DOMAIN_KEYGEN = 0x5F;
+    public static final byte DOMAIN_ENCAPSULATION = (byte) 0x96;
+
+    private final int[] cdfTable;
+    private final SHAKEDigest xof;
+    private final byte[] buffer = new byte[BUFFER_BYTES];
+
+    // Absorbs domain || seed; every following sample call continues the same output stream
+    public NoiseSampler(FrodoParams params, byte domain, byte[] seed) {
+        this.cdfTable = params.cdfTable;
+        this.xof = new SHAKEDigest(params.xofStrength());
+        xof.update(domain);
+        xof.update(seed, 0, seed.length);
+    }
+
+    // Draws a rows x cols error matrix
+    public NoiseMatrix sample(int rows, int cols) {
+        NoiseMatrix matrix = new NoiseMatrix(rows, cols);
+        fill(matrix.data, 0, matrix.data.length);
+        return matrix;
+    }
+
+    // Fills out[from, to) with error samples, e.g. one row block at a time
+    public void fill(byte[] out, int from, int to) {
+        int position = from;
+        while (position < to) {
+            int count = Math.min(to - position, BUFFER_BYTES / 2);
+            xof.doOutput(buffer, 0, count * 2);
+            for (int i = 0; i < count; i++) {
+                int word = (buffer[2 * i] & 0xFF) | ((buffer[2 * i + 1] & 0xFF) << 8);
+                out[position + i] = (byte) sample(word, cdfTable);
+            }
+            position += count;
+        }
+    }
+
+    // Clears the XOF state and the buffered output; the sampler must not be used afterwards
+    public void wipe() {
+        xof.reset();
+        Arrays.fill(buffer, (byte) 0);
+    }
+
+    // Maps one uniform 16-bit word to a signed error value in constant time
+    static int sample(int word, int[] cdfTable) {
+        int prnd = word >>> 1;
+        int sign = word & 1;
+        int magnitude = 0;
+        // The last table entry is 2^15 - 1 and never exceeded, so it is not compared
+        for (int j = 0; j < cdfTable.length - 1; j++) {
+            magnitude += (cdfTable[j] - prnd) >>> 31;
+        }
+        // sign ? -magnitude : magnitude without a branch
+        return ((-sign) ^ magnitude) + sign;
+    }
+}
@@ -0,0 +1,19 @@
+package frodokem;
+
+// Bulk source of random bytes; one call fills a whole buffer instead of drawing per element
+public interface RandomSource {
+    void fill(byte[] out, int offset, int length);
+
+    default void fill(byte[] out) {
+        fill(out, 0, out.length);
+    }
+
+    // Fills out with little-endian 16-bit words
+    default void fill(short[] out) {
+        byte[] bytes = new byte[2 * out.length];
+        fill(bytes, 0, bytes.length);
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (short) ((bytes[2 * i] & 0xFF) | ((bytes[2 * i + 1] & 0xFF) << 8));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package frodokem;
+
+import java.util.Arrays;
+
+import org.bouncycastle.crypto.digests.SHAKEDigest;
+
+// SHAKE-256 output stream keyed by a seed. Not thread-safe: each thread or operation owns its stream.
+// The seed is wiped once absorbed; only the XOF state is kept
+public final class ShakeRandomSource implements RandomSource {
+    private final SHAKEDigest xof = new SHAKEDigest(256);
+
+    public ShakeRandomSource(byte[] seed) {
+        byte[] copy = seed.clone();
+        xof.update(copy, 0, copy.length);
+        Arrays.fill(copy, (byte) 0);
+    }
+
+    @Override
+    public void fill(byte[] out, int offset, int length) {
+        xof.doOutput(out, offset, length);
+    }
+
+    // Clears the XOF state; the stream must not be used afterwards
+    public void wipe() {
+        xof.reset();
+    }
+}
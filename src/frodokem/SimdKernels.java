@@ -0,0 +1,26 @@
+package frodokem;
+
+// Vectorized versions of the innermost kernel loops. Implementations must give exactly the
+// results of the scalar loops in MatrixKernels: int lanes wrap mod 2^32 the same way scalars do
+interface SimdKernels {
+    // y[yOff, yOff + length) += alpha * x[xOff, xOff + length)
+    void axpy(int alpha, int[] x, int xOff, int[] y, int yOff, int length);
+
+    // out[from, to) = a + b
+    void add(int[] a, int[] b, int[] out, int from, int to);
+
+    // out[from, to) = a - b
+    void subtract(int[] a, int[] b, int[] out, int from, int to);
+
+    // dst[from, to) = src & mask
+    void mask(int[] src, int[] dst, int from, int to, int mask);
+
+    // Sum of (a[aOff + i] & 0xFFFF) * b[bOff + i] over [0, length): a mod-Q row times a noise row
+    int dot(short[] a, int aOff, byte[] b, int bOff, int length);
+
+    // Sum of a[aOff + i] * b[bOff + i] over [0, length): an int row times a noise row
+    int dot(int[] a, int aOff, byte[] b, int bOff, int length);
+
+    // Human-readable description, e.g. "IntVector x 8"
+    String description();
+}
@@ -0,0 +1,232 @@
+package frodokem;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+// Strassen-Winograd recursive product: 7 half-size products and 15 block additions per level
+// instead of 8 products. Every step is int addition, subtraction or multiplication, which wrap
+// mod 2^32, so the result is bit-identical to the blocked kernel (and exact mod any power-of-two Q).
+// Operands are padded with zeros so every dimension halves evenly down to the leaf size
+final class StrassenKernels {
+    private StrassenKernels() {
+    }
+
+    // Strided view of a row-major block: element (i, j) lives at data[off + i * stride + j]
+    private static final class Block {
+        final int[] data;
+        final int off;
+        final int stride;
+
+        Block(int[] data, int off, int stride) {
+            this.data = data;
+            this.off = off;
+            this.stride = stride;
+        }
+
+        Block quadrant(int row, int col) {
+            return new Block(data, off + row * stride + col, stride);
+        }
+    }
+
+    // Halvings until the smallest dimension would drop below the cutoff
+    static int depth(int n, int k, int m, int cutoff) {
+        int depth = 0;
+        for (int min = Math.min(n, Math.min(k, m)); min >= 2 * cutoff; min >>= 1) {
+            depth++;
+        }
+        return depth;
+    }
+
+    // c[n x m] = a[n x k] * b[k x m], all row-major; c is overwritten
+    static void multiply(int[] a, int[] b, int[] c, int n, int k, int m, int cutoff) {
+        int depth = depth(n, k, m, cutoff);
+        int np = padded(n, depth);
+        int kp = padded(k, depth);
+        int mp = padded(m, depth);
+        Block pa = np == n && kp == k ? new Block(a, 0, k) : new Block(pad(a, n, k, np, kp), 0, kp);
+        Block pb = kp == k && mp == m ? new Block(b, 0, m) : new Block(pad(b, k, m, kp, mp), 0, mp);
+        if (np == n && mp == m) {
+            run(new Product(pa, pb, new Block(c, 0, m), np, kp, mp, depth));
+            return;
+        }
+        int[] pc = new int[np * mp];
+        run(new Product(pa, pb, new Block(pc, 0, mp), np, kp, mp, depth));
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(pc, i * mp, c, i * m, m);
+        }
+    }
+
+    // Smallest multiple of 2^depth that holds size
+    private static int padded(int size, int depth) {
+        int unit = 1 << depth;
+        return (size + unit - 1) / unit * unit;
+    }
+
+    private static int[] pad(int[] src, int rows, int cols, int paddedRows, int paddedCols) {
+        int[] dst = new int[paddedRows * paddedCols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(src, i * cols, dst, i * paddedCols, cols);
+        }
+        return dst;
+    }
+
+    private static void run(Product product) {
+        ForkJoinPool pool = MatrixKernels.pool();
+        long work = (long) product.n * product.k * product.m;
+        if (pool == null || work < MatrixKernels.parallelThreshold() || pool.getParallelism() < 2) {
+            product.compute();
+            return;
+        }
+        Thread current = Thread.currentThread();
+        if (current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == pool) {
+            product.invoke();
+        } else {
+            pool.invoke(product);
+        }
+    }
+
+    // c = a * b for one recursion level; the seven sub-products are forked when they are large
+    // enough to pay for a task
+    private static final class Product extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Block a;
+        private final transient Block b;
+        private final transient Block c;
+        final int n;
+        final int k;
+        final int m;
+        private final int depth;
+
+        Product(Block a, Block b, Block c, int n, int k, int m, int depth) {
+            this.a = a;
+            this.b = b;
+            this.c = c;
+            this.n = n;
+            this.k = k;
+            this.m = m;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            if (depth == 0) {
+                leaf(a, b, c, n, k, m);
+                return;
+            }
+            int n2 = n / 2;
+            int k2 = k / 2;
+            int m2 = m / 2;
+            Block a11 = a.quadrant(0, 0);
+            Block a12 = a.quadrant(0, k2);
+            Block a21 = a.quadrant(n2, 0);
+            Block a22 = a.quadrant(n2, k2);
+            Block b11 = b.quadrant(0, 0);
+            Block b12 = b.quadrant(0, m2);
+            Block b21 = b.quadrant(k2, 0);
+            Block b22 = b.quadrant(k2, m2);
+
+            // Winograd's operand sums
+            Block s1 = temp(n2, k2);
+            Block s2 = temp(n2, k2);
+            Block s3 = temp(n2, k2);
+            Block s4 = temp(n2, k2);
+            combine(a21, a22, s1, n2, k2, 1); // s1 = a21 + a22
+            combine(s1, a11, s2, n2, k2, -1); // s2 = s1 - a11
+            combine(a11, a21, s3, n2, k2, -1); // s3 = a11 - a21
+            combine(a12, s2, s4, n2, k2, -1); // s4 = a12 - s2
+            Block t1 = temp(k2, m2);
+            Block t2 = temp(k2, m2);
+            Block t3 = temp(k2, m2);
+            Block t4 = temp(k2, m2);
+            combine(b12, b11, t1, k2, m2, -1); // t1 = b12 - b11
+            combine(b22, t1, t2, k2, m2, -1); // t2 = b22 - t1
+            combine(b22, b12, t3, k2, m2, -1); // t3 = b22 - b12
+            combine(t2, b21, t4, k2, m2, -1); // t4 = t2 - b21
+
+            // p1, p2, p6 and p7 are computed straight into the quadrants of c and combined in place
+            Block c11 = c.quadrant(0, 0);
+            Block c12 = c.quadrant(0, m2);
+            Block c21 = c.quadrant(n2, 0);
+            Block c22 = c.quadrant(n2, m2);
+            Block p1 = c11;
+            Block p2 = c12;
+            Block p3 = temp(n2, m2);
+            Block p4 = temp(n2, m2);
+            Block p5 = temp(n2, m2);
+            Block p6 = c21;
+            Block p7 = c22;
+            int d = depth - 1;
+            Product[] products = {
+                    new Product(a11, b11, p1, n2, k2, m2, d),
+                    new Product(a12, b21, p2, n2, k2, m2, d),
+                    new Product(s4, b22, p3, n2, k2, m2, d),
+                    new Product(a22, t4, p4, n2, k2, m2, d),
+                    new Product(s1, t1, p5, n2, k2, m2, d),
+                    new Product(s2, t2, p6, n2, k2, m2, d),
+                    new Product(s3, t3, p7, n2, k2, m2, d)
+            };
+            if (getPool() != null && (long) n2 * k2 * m2 >= MatrixKernels.parallelThreshold()) {
+                invokeAll(products);
+            } else {
+                for (Product product : products) {
+                    product.compute();
+                }
+            }
+
+            // c11 = p1 + p2, c12 = p1 + p6 + p5 + p3, c21 = p1 + p6 + p7 - p4, c22 = p1 + p6 + p7 + p5;
+            // each position reads its p values before overwriting them
+            for (int i = 0; i < n2; i++) {
+                int r1 = p1.off + i * p1.stride;
+                int r2 = p2.off + i * p2.stride;
+                int r6 = p6.off + i * p6.stride;
+                int r7 = p7.off + i * p7.stride;
+                int r3 = p3.off + i * p3.stride;
+                int r4 = p4.off + i * p4.stride;
+                int r5 = p5.off + i * p5.stride;
+                for (int j = 0; j < m2; j++) {
+                    int u1 = p1.data[r1 + j];
+                    int u2 = u1 + p6.data[r6 + j];
+                    int u3 = u2 + p7.data[r7 + j];
+                    int v5 = p5.data[r5 + j];
+                    int u4 = u2 + v5;
+                    c11.data[r1 + j] = u1 + p2.data[r2 + j];
+                    c12.data[r2 + j] = u4 + p3.data[r3 + j];
+                    c21.data[r6 + j] = u3 - p4.data[r4 + j];
+                    c22.data[r7 + j] = u3 + v5;
+                }
+            }
+        }
+    }
+
+    private static Block temp(int rows, int cols) {
+        return new Block(new int[rows * cols], 0, cols);
+    }
+
+    // out = x + sign * y over a rows x cols block
+    private static void combine(Block x, Block y, Block out, int rows, int cols, int sign) {
+        for (int i = 0; i < rows; i++) {
+            int xr = x.off + i * x.stride;
+            int yr = y.off + i * y.stride;
+            int or = out.off + i * out.stride;
+            for (int j = 0; j < cols; j++) {
+                out.data[or + j] = x.data[xr + j] + sign * y.data[yr + j];
+            }
+        }
+    }
+
+    // Base case: c = a * b with the same i-k-j row updates as MatrixKernels.multiplyRows
+    private static void leaf(Block a, Block b, Block c, int n, int k, int m) {
+        SimdKernels vector = MatrixKernels.simd();
+        for (int i = 0; i < n; i++) {
+            int cRow = c.off + i * c.stride;
+            Arrays.fill(c.data, cRow, cRow + m, 0);
+            int aRow = a.off + i * a.stride;
+            for (int p = 0; p < k; p++) {
+                MatrixKernels.axpy(vector, a.data[aRow + p], b.data, b.off + p * b.stride, c.data, cRow, m);
+            }
+        }
+    }
+}
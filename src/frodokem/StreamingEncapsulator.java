@@ -0,0 +1,183 @@
+package frodokem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+// Encapsulation that writes the ciphertext as it is produced instead of building C1, C2 and the
+// encoded buffer first. Rows of A are expanded blockRows at a time and folded into an
+// mBar x n accumulator; e1 and e2 are drawn row by row while the finished rows of C1 and C2 are
+// handed to a RowSink or packed straight into a channel. The working set is r, the accumulator,
+// one block of A and the output buffer, independent of how many handshakes run at once. Each
+// call is sequential and uses the same randomness as FrodoKEM.encapsulate, so the bytes written
+// equal FrodoSerializer.encode(FrodoKEM.encapsulate(publicKey, random)). Encapsulation
+// transcripts are not recorded on this path
+public final class StreamingEncapsulator {
+    public static final int DEFAULT_BLOCK_ROWS = 16;
+    public static final int DEFAULT_BUFFER_BYTES = 4096;
+
+    public enum Part {
+        C1,
+        C2
+    }
+
+    // Receives each finished row, reduced mod Q; values is reused after the call returns
+    @FunctionalInterface
+    public interface RowSink {
+        void accept(Part part, int row, int[] values) throws IOException;
+    }
+
+    private final int blockRows;
+    private final int bufferBytes;
+
+    public StreamingEncapsulator() {
+        this(DEFAULT_BLOCK_ROWS, DEFAULT_BUFFER_BYTES);
+    }
+
+    public StreamingEncapsulator(int blockRows, int bufferBytes) {
+        if (blockRows <= 0 || bufferBytes <= 0) {
+            throw new IllegalArgumentException("Block rows and buffer size must be positive.");
+        }
+        this.blockRows = blockRows;
+        this.bufferBytes = bufferBytes;
+    }
+
+    public void encapsulate(FrodoKEM.PublicKey publicKey, WritableByteChannel channel) throws IOException {
+        encapsulate(publicKey, CSPRNG.current(), channel);
+    }
+
+    // Writes header, packed C1 and packed C2 in FrodoSerializer's ciphertext format
+    public void encapsulate(FrodoKEM.PublicKey publicKey, RandomSource random, WritableByteChannel channel)
+            throws IOException {
+        FrodoParams params = publicKey.params;
+        ByteBuffer out = ByteBuffer.allocate(Math.max(bufferBytes, FrodoSerializer.HEADER_BYTES));
+        FrodoSerializer.putHeader(out, FrodoSerializer.TYPE_CIPHERTEXT, params);
+        FrodoSerializer.Packer packer = new FrodoSerializer.Packer(out, channel, params.logQ);
+        try {
+            encapsulate(publicKey, random, (part, row, values) -> {
+                for (int value : values) {
+                    packer.put(value);
+                }
+                // C1 and C2 are packed as separate matrices, each padded to a whole byte
+                if (row == params.mBar - 1) {
+                    packer.finish();
+                }
+            });
+            packer.drain();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Emits every row of C1, then every row of C2, in order
+    public void encapsulate(FrodoKEM.PublicKey publicKey, RandomSource random, RowSink sink) throws IOException {
+        KemMetrics.Scope scope = KemMetrics.begin(KemMetrics.Operation.ENCAPSULATE_STREAMING);
+        try {
+            stream(publicKey, random, sink);
+            KemMetrics.end(scope);
+        } catch (IOException | RuntimeException e) {
+            KemMetrics.fail(scope);
+            throw e;
+        }
+    }
+
+    private void stream(FrodoKEM.PublicKey publicKey, RandomSource random, RowSink sink) throws IOException {
+        FrodoParams params = publicKey.params;
+        int n = params.n;
+        int mBar = params.mBar;
+        int nBar = params.nBar;
+
+        byte[] seedSE = new byte[FrodoKEM.SEED_SE_BYTES];
+        random.fill(seedSE);
+        long sampling = KemMetrics.phaseStart();
+        NoiseSampler noise = new NoiseSampler(params, NoiseSampler.DOMAIN_ENCAPSULATION, seedSE);
+        // r is needed in full: row i of A pairs with column i of r
+        byte[] r = new byte[mBar * n];
+        noise.fill(r, 0, r.length);
+        KemMetrics.phaseEnd(KemMetrics.Phase.SAMPLING, sampling);
+
+        int[] acc = new int[mBar * n];
+        int rowsPerBlock = Math.min(blockRows, n);
+        int[] block = new int[rowsPerBlock * n];
+        byte[] errorRow = new byte[n];
+        int[] out = new int[n];
+        try {
+            // acc = r * A, one block of A rows at a time; with l outermost the accumulator row
+            // stays in cache while the block's rows are folded into it
+            MatrixA.RowExpander expander = publicKey.matrixA().newExpander();
+            SimdKernels vector = MatrixKernels.simd();
+            for (int start = 0; start < n; start += rowsPerBlock) {
+                int end = Math.min(start + rowsPerBlock, n);
+                long expansion = KemMetrics.phaseStart();
+                for (int i = start; i < end; i++) {
+                    expander.expand(i, out);
+                    System.arraycopy(out, 0, block, (i - start) * n, n);
+                }
+                KemMetrics.phaseEnd(KemMetrics.Phase.A_EXPANSION, expansion);
+                long multiply = KemMetrics.phaseStart();
+                for (int l = 0; l < mBar; l++) {
+                    for (int i = start; i < end; i++) {
+                        MatrixKernels.axpy(vector, r[l * n + i], block, (i - start) * n, acc, l * n, n);
+                    }
+                }
+                KemMetrics.phaseEnd(KemMetrics.Phase.MULTIPLY, multiply);
+            }
+
+            // C1 = (r * A + e1) mod q; e1 comes off the noise stream in row order
+            for (int l = 0; l < mBar; l++) {
+                sampling = KemMetrics.phaseStart();
+                noise.fill(errorRow, 0, n);
+                KemMetrics.phaseEnd(KemMetrics.Phase.SAMPLING, sampling);
+                long reduction = KemMetrics.phaseStart();
+                for (int j = 0; j < n; j++) {
+                    out[j] = acc[l * n + j] + errorRow[j];
+                }
+                MatrixKernels.reduceRange(out, out, 0, n, params.q);
+                KemMetrics.phaseEnd(KemMetrics.Phase.REDUCTION, reduction);
+                sink.accept(Part.C1, l, out);
+            }
+
+            // C2 = (r * B + e2) mod q, one mBar row at a time
+            int[] c2Row = new int[nBar];
+            short[] b = publicKey.B.data;
+            // B is only nBar columns wide, so the SIMD path dots rows of r with rows of B^T
+            long multiply = KemMetrics.phaseStart();
+            short[] bT = vector != null ? NarrowKernels.transpose(b, n, nBar) : null;
+            KemMetrics.phaseEnd(KemMetrics.Phase.MULTIPLY, multiply);
+            for (int l = 0; l < mBar; l++) {
+                sampling = KemMetrics.phaseStart();
+                noise.fill(errorRow, 0, nBar);
+                KemMetrics.phaseEnd(KemMetrics.Phase.SAMPLING, sampling);
+                multiply = KemMetrics.phaseStart();
+                for (int j = 0; j < nBar; j++) {
+                    c2Row[j] = errorRow[j];
+                }
+                if (bT != null) {
+                    for (int j = 0; j < nBar; j++) {
+                        c2Row[j] += vector.dot(bT, j * n, r, l * n, n);
+                    }
+                } else {
+                    for (int p = 0; p < n; p++) {
+                        int rlp = r[l * n + p];
+                        int bRow = p * nBar;
+                        for (int j = 0; j < nBar; j++) {
+                            c2Row[j] += rlp * (b[bRow + j] & 0xFFFF);
+                        }
+                    }
+                }
+                MatrixKernels.reduceRange(c2Row, c2Row, 0, nBar, params.q);
+                KemMetrics.phaseEnd(KemMetrics.Phase.MULTIPLY, multiply);
+                sink.accept(Part.C2, l, c2Row);
+            }
+        } finally {
+            // r and everything derived from it are ephemeral secrets
+            noise.wipe();
+            Arrays.fill(seedSE, (byte) 0);
+            Arrays.fill(r, (byte) 0);
+            Arrays.fill(acc, 0);
+            Arrays.fill(errorRow, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package frodokem;
+
+// Receives the randomness and intermediates of a KEM operation, e.g. to produce test vectors.
+// Implementations are called on the hot path and must not block
+public interface TranscriptSink {
+    // Discards everything; the default, so operations stay pure compute
+    TranscriptSink NONE = (name, matrix) -> {
+    };
+
+    void record(String name, Matrix matrix);
+}